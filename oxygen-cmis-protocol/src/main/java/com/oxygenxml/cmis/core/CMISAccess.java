@@ -16,6 +16,22 @@ import org.apache.chemistry.opencmis.commons.exceptions.CmisUnauthorizedExceptio
  * Entry point to access a CMIS server.
  */
 public class CMISAccess {
+	/**
+	 * Maximum number of sessions kept alive in the pool.
+	 */
+	private static final int MAX_POOLED_SESSIONS = 100;
+
+	/**
+	 * A pooled session not used for this long is dropped (30 minutes).
+	 */
+	private static final long SESSION_IDLE_TIMEOUT = 30 * 60 * 1000L;
+
+	/**
+	 * Live sessions shared by the instances that don't have their own pool.
+	 */
+	private static final SessionPool sharedSessionPool = new SessionPool(MAX_POOLED_SESSIONS,
+			SESSION_IDLE_TIMEOUT);
+
 	/**
 	 * Singleton instance.
 	 */
@@ -34,13 +50,29 @@ public class CMISAccess {
 	 * data across calls and to deal with user authentication.
 	 */
 	private Session session;
-	private Map<String, String> parameters;
+	private volatile Map<String, String> parameters;
+
+	/**
+	 * The pool from which the sessions are taken.
+	 */
+	private final SessionPool sessionPool;
 
 	/**
 	 * Private constructor. For Web-Author we need more instances of CMISAccess
 	 */
 	public CMISAccess() {
+		this(sharedSessionPool);
+	}
+
+	/**
+	 * Constructor.
+	 * 
+	 * @param sessionPool The pool from which the sessions are taken. For
+	 *                    Web-Author each user has its own pool.
+	 */
+	public CMISAccess(SessionPool sessionPool) {
 		factory = SessionFactoryImpl.newInstance();
+		this.sessionPool = sessionPool;
 	}
 
 	public static CMISAccess getInstance() {
@@ -50,12 +82,15 @@ public class CMISAccess {
 		return instance;
 	}
 
+	/**
+	 * @return An access to the same repository, with the session taken from the
+	 *         same pool.
+	 */
 	public CMISAccess clone() {
-		CMISAccess cmisAccess = new CMISAccess();
+		CMISAccess cmisAccess = new CMISAccess(sessionPool);
 
 		cmisAccess.parameters = parameters;
-		// create session
-		cmisAccess.session = factory.createSession(parameters);
+		cmisAccess.session = sessionPool.getSession(cmisAccess.factory, parameters);
 		return cmisAccess;
 	}
 
@@ -76,8 +111,19 @@ public class CMISAccess {
 		populateParameters(connectionInfo, parameters, uc);
 		parameters.put(SessionParameter.REPOSITORY_ID, repositoryID);
 
-		// create session
-		session = factory.createSession(parameters);
+		// reuse a pooled session or create one
+		session = sessionPool.getSession(factory, parameters);
+	}
+
+	/**
+	 * Drops the current session from the pool. Should be called when the server
+	 * rejects the session, for example with a {@link CmisUnauthorizedException},
+	 * so that the next connect creates a fresh one.
+	 */
+	public void invalidateSession() {
+		if (parameters != null) {
+			sessionPool.invalidate(parameters);
+		}
 	}
 
 	private void populateParameters(URL connectionInfo, Map<String, String> parameters, UserCredentials uc) {
@@ -119,7 +165,8 @@ public class CMISAccess {
 		String repositoryID = factory.getRepositories(conParameters).get(0).getId();
 		conParameters.put(SessionParameter.REPOSITORY_ID, repositoryID);
 		
-		session = factory.createSession(conParameters);
+		parameters = conParameters;
+		session = sessionPool.getSession(factory, conParameters);
 	}
 	
 	/**
@@ -132,8 +179,21 @@ public class CMISAccess {
 		return new ResourceController(session);
 	}
 
+	/**
+	 * @return A controller for the work done in the background. All the
+	 *         controllers share the background session of the pool for the
+	 *         connected repository. Can be used from any thread.
+	 */
+	public ResourceController createBackgroundResourceController() {
+		Map<String, String> connected = parameters;
+		if (connected == null) {
+			throw new IllegalAccessError("Not connected to reposiotry. This controller can't be used.");
+		}
+
+		return new ResourceController(sessionPool.getBackgroundSession(factory, connected));
+	}
+
 	public Session getSession() {
 		return session;
 	}
-
 }
@@ -0,0 +1,324 @@
+package com.oxygenxml.cmis.core;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.IllegalCharsetNameException;
+import java.nio.charset.StandardCharsets;
+import java.nio.charset.UnsupportedCharsetException;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Decodes the content of a document. The charset is taken from a byte order
+ * mark, from the MIME type or from the XML declaration, in this order, and is
+ * UTF-8 if none is found.
+ *
+ * The bytes are read into a buffer taken from a pool and given back on close.
+ * The same buffer holds the prefix sniffed for the charset and the bytes being
+ * decoded, the characters are decoded directly into the arrays of the caller.
+ */
+class ContentReader extends Reader {
+  /**
+   * Size of the pooled buffers.
+   */
+  private static final int BUFFER_SIZE = 8 * 1024;
+  /**
+   * Number of bytes looked at for the XML declaration.
+   */
+  private static final int SNIFF_LENGTH = 1024;
+  /**
+   * Maximum number of buffers kept in the pool.
+   */
+  private static final int MAX_POOLED = 16;
+  /**
+   * Buffers released by closed readers.
+   */
+  private static final Queue<byte[]> pool = new ConcurrentLinkedQueue<>();
+
+  /**
+   * The charset parameter of a MIME type.
+   */
+  private static final Pattern MIME_CHARSET = Pattern.compile(";\\s*charset\\s*=\\s*\"?([^\";\\s]+)",
+      Pattern.CASE_INSENSITIVE);
+  /**
+   * The encoding in an XML declaration.
+   */
+  private static final Pattern XML_ENCODING = Pattern.compile(
+      "^<\\?xml\\s[^>]*encoding\\s*=\\s*[\"']([A-Za-z][\\w.:-]*)[\"']");
+
+  private final InputStream in;
+  private final CharsetDecoder decoder;
+  /**
+   * The bytes read and not decoded yet, ready to be read.
+   */
+  private ByteBuffer bytes;
+  /**
+   * A character left from a pair decoded for a single character read, -1 if
+   * none.
+   */
+  private int pending = -1;
+  private boolean endOfInput;
+  private boolean flushed;
+
+  /**
+   * Constructor.
+   */
+  private ContentReader(InputStream in, ByteBuffer bytes, boolean endOfInput, Charset charset) {
+    this.in = in;
+    this.bytes = bytes;
+    this.endOfInput = endOfInput;
+    this.decoder = charset.newDecoder()
+        .onMalformedInput(CodingErrorAction.REPLACE)
+        .onUnmappableCharacter(CodingErrorAction.REPLACE);
+  }
+
+  /**
+   * Detects the charset of a content and creates a reader for it.
+   *
+   * @param in
+   *          The content, closed with the reader.
+   * @param mimeType
+   *          The MIME type of the content, can be <code>null</code>.
+   *
+   * @return The reader.
+   *
+   * @throws IOException
+   *           Unable to read the content.
+   */
+  static Reader open(InputStream in, String mimeType) throws IOException {
+    byte[] buffer = pool.poll();
+    if (buffer == null) {
+      buffer = new byte[BUFFER_SIZE];
+    }
+
+    boolean endOfInput = false;
+    int length = 0;
+    try {
+      // Fill the prefix.
+      while (length < SNIFF_LENGTH) {
+        int read = in.read(buffer, length, SNIFF_LENGTH - length);
+        if (read == -1) {
+          endOfInput = true;
+          break;
+        }
+        length += read;
+      }
+    } catch (IOException | RuntimeException e) {
+      release(buffer);
+      in.close();
+      throw e;
+    }
+
+    ByteBuffer bytes = ByteBuffer.wrap(buffer, 0, length);
+    Charset charset = detectCharset(bytes, mimeType);
+    return new ContentReader(in, bytes, endOfInput, charset);
+  }
+
+  /**
+   * Detects the charset of a content. A byte order mark is skipped.
+   *
+   * @param prefix
+   *          The beginning of the content.
+   * @param mimeType
+   *          The MIME type of the content, can be <code>null</code>.
+   *
+   * @return The charset.
+   */
+  static Charset detectCharset(ByteBuffer prefix, String mimeType) {
+    Charset charset = detectBOM(prefix);
+
+    if (charset == null && mimeType != null) {
+      Matcher matcher = MIME_CHARSET.matcher(mimeType);
+      if (matcher.find()) {
+        charset = forName(matcher.group(1));
+      }
+    }
+
+    if (charset == null) {
+      charset = detectXmlEncoding(prefix);
+    }
+
+    return charset != null ? charset : StandardCharsets.UTF_8;
+  }
+
+  /**
+   * @return The charset given by a byte order mark, which is skipped, or
+   *         <code>null</code>.
+   */
+  private static Charset detectBOM(ByteBuffer prefix) {
+    int p = prefix.position();
+    int remaining = prefix.remaining();
+    int b0 = remaining > 0 ? prefix.get(p) & 0xFF : -1;
+    int b1 = remaining > 1 ? prefix.get(p + 1) & 0xFF : -1;
+    int b2 = remaining > 2 ? prefix.get(p + 2) & 0xFF : -1;
+
+    Charset charset = null;
+    int bomLength = 0;
+    if (b0 == 0xEF && b1 == 0xBB && b2 == 0xBF) {
+      charset = StandardCharsets.UTF_8;
+      bomLength = 3;
+    } else if (b0 == 0xFE && b1 == 0xFF) {
+      charset = StandardCharsets.UTF_16BE;
+      bomLength = 2;
+    } else if (b0 == 0xFF && b1 == 0xFE) {
+      charset = StandardCharsets.UTF_16LE;
+      bomLength = 2;
+    }
+
+    prefix.position(p + bomLength);
+    return charset;
+  }
+
+  /**
+   * @return The charset from the XML declaration or <code>null</code>.
+   */
+  private static Charset detectXmlEncoding(ByteBuffer prefix) {
+    int p = prefix.position();
+    int remaining = prefix.remaining();
+    if (remaining < 4) {
+      return null;
+    }
+
+    // "<?" tells the width of the characters.
+    int b0 = prefix.get(p);
+    int b1 = prefix.get(p + 1);
+    int b2 = prefix.get(p + 2);
+    int b3 = prefix.get(p + 3);
+    Charset declarationCharset;
+    if (b0 == '<' && b1 == '?') {
+      declarationCharset = StandardCharsets.ISO_8859_1;
+    } else if (b0 == '<' && b1 == 0 && b2 == '?' && b3 == 0) {
+      return StandardCharsets.UTF_16LE;
+    } else if (b0 == 0 && b1 == '<' && b2 == 0 && b3 == '?') {
+      return StandardCharsets.UTF_16BE;
+    } else {
+      return null;
+    }
+
+    String declaration = new String(prefix.array(), prefix.arrayOffset() + p, remaining, declarationCharset);
+    Matcher matcher = XML_ENCODING.matcher(declaration);
+    return matcher.find() ? forName(matcher.group(1)) : null;
+  }
+
+  /**
+   * @return The charset with the given name or <code>null</code> if not
+   *         supported.
+   */
+  private static Charset forName(String name) {
+    try {
+      return Charset.forName(name);
+    } catch (IllegalCharsetNameException | UnsupportedCharsetException e) {
+      return null;
+    }
+  }
+
+  @Override
+  public int read(char[] cbuf, int off, int len) throws IOException {
+    if (bytes == null) {
+      throw new IOException("Stream closed");
+    }
+    if (len == 0) {
+      return 0;
+    }
+
+    int count = 0;
+    if (pending != -1) {
+      cbuf[off] = (char) pending;
+      pending = -1;
+      if (len == 1) {
+        return 1;
+      }
+      count = 1;
+    }
+
+    if (len - count == 1) {
+      // A surrogate pair doesn't fit, decode it aside.
+      char[] pair = new char[2];
+      int read = decode(pair, 0, 2);
+      if (read == -1) {
+        return count > 0 ? count : -1;
+      }
+      cbuf[off + count] = pair[0];
+      if (read == 2) {
+        pending = pair[1];
+      }
+      return count + 1;
+    }
+
+    int read = decode(cbuf, off + count, len - count);
+    if (read == -1) {
+      return count > 0 ? count : -1;
+    }
+    return count + read;
+  }
+
+  /**
+   * Decodes at least one character, unless at the end.
+   *
+   * @return The number of characters decoded, -1 at the end.
+   */
+  private int decode(char[] cbuf, int off, int len) throws IOException {
+    CharBuffer out = CharBuffer.wrap(cbuf, off, len);
+    while (true) {
+      if (flushed) {
+        return -1;
+      }
+
+      CoderResult result = decoder.decode(bytes, out, endOfInput);
+      if (endOfInput && result.isUnderflow() && !flushed) {
+        flushed = decoder.flush(out).isUnderflow();
+      }
+
+      int decoded = out.position() - off;
+      if (decoded > 0) {
+        return decoded;
+      }
+
+      if (result.isUnderflow() && !endOfInput) {
+        fill();
+      }
+    }
+  }
+
+  /**
+   * Reads more bytes after the ones not decoded yet.
+   */
+  private void fill() throws IOException {
+    bytes.compact();
+    int read = in.read(bytes.array(), bytes.arrayOffset() + bytes.position(), bytes.remaining());
+    if (read == -1) {
+      endOfInput = true;
+    } else {
+      bytes.position(bytes.position() + read);
+    }
+    bytes.flip();
+  }
+
+  @Override
+  public void close() throws IOException {
+    if (bytes != null) {
+      byte[] buffer = bytes.array();
+      bytes = null;
+      release(buffer);
+      in.close();
+    }
+  }
+
+  /**
+   * Gives a buffer back to the pool.
+   */
+  private static void release(byte[] buffer) {
+    if (pool.size() < MAX_POOLED) {
+      pool.offer(buffer);
+    }
+  }
+}
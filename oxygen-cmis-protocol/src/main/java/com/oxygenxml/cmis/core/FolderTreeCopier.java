@@ -0,0 +1,150 @@
+package com.oxygenxml.cmis.core;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+import org.apache.chemistry.opencmis.client.api.CmisObject;
+import org.apache.chemistry.opencmis.client.api.Document;
+import org.apache.chemistry.opencmis.client.api.Folder;
+import org.apache.chemistry.opencmis.client.api.OperationContext;
+import org.apache.chemistry.opencmis.commons.PropertyIds;
+import org.apache.chemistry.opencmis.commons.exceptions.CmisContentAlreadyExistsException;
+import org.apache.log4j.Logger;
+
+import com.oxygenxml.cmis.core.model.impl.FolderImpl;
+
+/**
+ * Copies a folder tree. Each folder is created before its children, the
+ * documents are copied in parallel, from server to server when possible.
+ *
+ * The creations are retried like any other task. A retry after a creation the
+ * server applied but whose response was lost finds the object already there.
+ * Since the folders that receive the children are new, that object is taken
+ * as the copy.
+ */
+class FolderTreeCopier {
+  /**
+   * Logging.
+   */
+  private static final Logger logger = Logger.getLogger(FolderTreeCopier.class);
+
+  /**
+   * Creates the folders and copies the documents.
+   */
+  private final ResourceController ctrl;
+
+  /**
+   * Copies the objects.
+   */
+  private final ParallelOperation<CmisObject> operation;
+
+  /**
+   * Constructor.
+   *
+   * @param ctrl
+   *          Creates the folders and copies the documents.
+   * @param operation
+   *          Copies the objects.
+   */
+  FolderTreeCopier(ResourceController ctrl, ParallelOperation<CmisObject> operation) {
+    this.ctrl = ctrl;
+    this.operation = operation;
+  }
+
+  /**
+   * Copies a folder tree and waits for the operation to finish.
+   *
+   * @param source
+   *          The folder to copy.
+   * @param targetParent
+   *          The folder that receives the copy.
+   *
+   * @return The copy.
+   *
+   * @throws InterruptedException
+   *           Interrupted while waiting.
+   */
+  Folder copy(Folder source, Folder targetParent) throws InterruptedException {
+    String sourcePath = source.getPath();
+    String targetPath = targetParent.getPath();
+    if (targetPath.equals(sourcePath) || targetPath.startsWith(sourcePath + "/")) {
+      throw new IllegalArgumentException("Cannot copy " + sourcePath + " inside itself");
+    }
+
+    Folder copy = ctrl.createFolder(targetParent, source.getName());
+    operation.submit(source, item -> copyChildren(source, copy));
+    operation.await();
+
+    return copy;
+  }
+
+  /**
+   * Submits the children of a folder to be copied in another.
+   */
+  private void copyChildren(Folder source, Folder target) {
+    // All the pages are read before submitting, so that a retried listing
+    // submits nothing twice.
+    List<CmisObject> children = new ArrayList<>();
+    // The content properties are needed when the repository can't copy a
+    // document and its content is streamed.
+    OperationContext context = FolderImpl.createListingContext(FolderImpl.DEFAULT_PAGE_SIZE,
+        PropertyIds.CONTENT_STREAM_FILE_NAME, PropertyIds.CONTENT_STREAM_LENGTH, PropertyIds.CONTENT_STREAM_MIME_TYPE);
+    for (CmisObject child : source.getChildren(context)) {
+      children.add(child);
+    }
+
+    for (CmisObject child : children) {
+      if (child instanceof Folder) {
+        operation.submit(child, item -> {
+          Folder childCopy = createOnce(target, child.getName(), Folder.class,
+              () -> ctrl.createFolder(target, child.getName()));
+          // Listed separately, so that a failed listing doesn't create the
+          // folder again.
+          operation.submit(child, folder -> copyChildren((Folder) folder, childCopy));
+        });
+
+      } else if (child instanceof Document) {
+        Document doc = (Document) child;
+        // The private working copies go with the checked out documents.
+        if (!Boolean.TRUE.equals(doc.isPrivateWorkingCopy())) {
+          operation.submit(child,
+              item -> createOnce(target, doc.getName(), Document.class, () -> ctrl.copyDocument(doc, target)));
+        }
+
+      } else {
+        logger.debug("Not copied " + child.getName() + ": unhandled type " + child.getBaseTypeId());
+      }
+    }
+  }
+
+  /**
+   * Creates a child of a copied folder, or gets the one created by a previous
+   * attempt.
+   *
+   * @param target
+   *          The folder that receives the child.
+   * @param name
+   *          The name of the child.
+   * @param type
+   *          The type of the child.
+   * @param creator
+   *          Creates the child.
+   *
+   * @return The child.
+   */
+  private <T extends CmisObject> T createOnce(Folder target, String name, Class<T> type, Supplier<T> creator) {
+    try {
+      return creator.get();
+    } catch (CmisContentAlreadyExistsException e) {
+      String parentPath = target.getPath();
+      String path = parentPath.endsWith("/") ? parentPath + name : parentPath + "/" + name;
+      CmisObject existing = ctrl.getSession().getObjectByPath(path);
+      if (!type.isInstance(existing)) {
+        throw e;
+      }
+      logger.debug("Created by a previous attempt: " + path);
+      return type.cast(existing);
+    }
+  }
+}
@@ -0,0 +1,208 @@
+package com.oxygenxml.cmis.core;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.chemistry.opencmis.client.api.CmisObject;
+import org.apache.chemistry.opencmis.client.api.Folder;
+import org.apache.chemistry.opencmis.client.runtime.OperationContextImpl;
+import org.apache.chemistry.opencmis.commons.PropertyIds;
+import org.apache.chemistry.opencmis.commons.enums.IncludeRelationships;
+import org.apache.chemistry.opencmis.commons.enums.UnfileObject;
+import org.apache.chemistry.opencmis.commons.exceptions.CmisConstraintException;
+import org.apache.chemistry.opencmis.commons.exceptions.CmisObjectNotFoundException;
+import org.apache.log4j.Logger;
+
+/**
+ * Deletes a folder tree. A single deleteTree request is tried first. If it
+ * fails, for example because a large tree takes longer than the HTTP timeout,
+ * or if it leaves objects behind, what is left is deleted bottom-up: the
+ * documents in parallel, each folder once all its children are gone.
+ *
+ * The single deleteTree request reports no progress and can't be canceled. A
+ * cancel during it is seen only before the fallback, which is then skipped.
+ * The folders left because one of their children could not be deleted are
+ * reported as failures of the operation, next to the failed children.
+ */
+class FolderTreeDeleter {
+  /**
+   * Logging.
+   */
+  private static final Logger logger = Logger.getLogger(FolderTreeDeleter.class);
+
+  /**
+   * Number of children listed in one request.
+   */
+  private static final int PAGE_SIZE = 100;
+
+  /**
+   * Deletes the objects.
+   */
+  private final ParallelOperation<CmisObject> operation;
+
+  /**
+   * All the objects found in the tree, by ID.
+   */
+  private final Map<String, CmisObject> found = Collections.synchronizedMap(new LinkedHashMap<>());
+
+  /**
+   * The IDs of the deleted objects.
+   */
+  private final Set<String> deleted = Collections.synchronizedSet(new LinkedHashSet<>());
+
+  /**
+   * Constructor.
+   *
+   * @param operation
+   *          Deletes the objects, if deleteTree fails.
+   */
+  FolderTreeDeleter(ParallelOperation<CmisObject> operation) {
+    this.operation = operation;
+  }
+
+  /**
+   * Deletes a folder tree and waits for the operation to finish.
+   *
+   * @param folder
+   *          The folder.
+   *
+   * @return The IDs of the objects that were not deleted.
+   *
+   * @throws InterruptedException
+   *           Interrupted while waiting.
+   */
+  List<String> delete(Folder folder) throws InterruptedException {
+    try {
+      List<String> failed = folder.deleteTree(true, UnfileObject.DELETE, true);
+      if (failed == null || failed.isEmpty()) {
+        return Collections.emptyList();
+      }
+      logger.debug("Objects left by deleteTree: " + failed);
+    } catch (CmisObjectNotFoundException e) {
+      // Already gone.
+      return Collections.emptyList();
+    } catch (RuntimeException e) {
+      logger.debug("Unable to delete the tree at once, deleting it bottom-up", e);
+    }
+
+    if (operation.isCanceled()) {
+      // Canceled while waiting for deleteTree.
+      return Collections.singletonList(folder.getId());
+    }
+
+    found.put(folder.getId(), folder);
+    Node root = new Node(folder, null);
+    operation.submit(folder, item -> list(root));
+
+    Set<String> failed = new HashSet<>();
+    for (ParallelOperation.Failure<CmisObject> failure : operation.await()) {
+      failed.add(failure.getItem().getId());
+    }
+
+    List<String> undeleted = new ArrayList<>();
+    synchronized (found) {
+      for (CmisObject object : found.values()) {
+        String id = object.getId();
+        if (!deleted.contains(id)) {
+          undeleted.add(id);
+          if (!failed.contains(id) && !operation.isCanceled()) {
+            operation.reportFailure(object, new CmisConstraintException("Not empty, some children were not deleted"));
+          }
+        }
+      }
+    }
+
+    return undeleted;
+  }
+
+  /**
+   * Lists the children of a folder and submits them. Documents are deleted,
+   * folders listed in their turn.
+   */
+  private void list(Node node) {
+    OperationContextImpl context = new OperationContextImpl();
+    context.setFilterString(String.join(",", PropertyIds.OBJECT_ID, PropertyIds.OBJECT_TYPE_ID,
+        PropertyIds.BASE_TYPE_ID, PropertyIds.NAME));
+    context.setIncludeAllowableActions(false);
+    context.setIncludeRelationships(IncludeRelationships.NONE);
+    context.setIncludePolicies(false);
+    context.setIncludePathSegments(false);
+    context.setMaxItemsPerPage(PAGE_SIZE);
+
+    // All the pages are read before submitting, so that a retried listing
+    // submits nothing twice.
+    List<CmisObject> children = new ArrayList<>();
+    for (CmisObject child : node.folder.getChildren(context)) {
+      children.add(child);
+    }
+
+    for (CmisObject child : children) {
+      found.put(child.getId(), child);
+      node.pending.incrementAndGet();
+      if (child instanceof Folder) {
+        Node childNode = new Node((Folder) child, node);
+        operation.submit(child, item -> list(childNode));
+      } else {
+        operation.submit(child, item -> deleteObject(item, node));
+      }
+    }
+
+    // The listing itself is done.
+    childDeleted(node);
+  }
+
+  /**
+   * Deletes an object, all its versions for a document.
+   *
+   * @param object
+   *          The object.
+   * @param parent
+   *          The folder containing it, <code>null</code> for the root.
+   */
+  private void deleteObject(CmisObject object, Node parent) {
+    try {
+      object.delete(true);
+    } catch (CmisObjectNotFoundException e) {
+      // Deleted with its version series or by someone else.
+    }
+    deleted.add(object.getId());
+
+    if (parent != null) {
+      childDeleted(parent);
+    }
+  }
+
+  /**
+   * Called when a child of a folder was deleted. The folder is deleted after
+   * its last child.
+   */
+  private void childDeleted(Node node) {
+    if (node.pending.decrementAndGet() == 0) {
+      operation.submit(node.folder, item -> deleteObject(item, node.parent));
+    }
+  }
+
+  /**
+   * A folder waiting for its children to be deleted.
+   */
+  private static class Node {
+    private final Folder folder;
+    private final Node parent;
+    /**
+     * The children not deleted yet, plus one until they were all listed.
+     */
+    private final AtomicInteger pending = new AtomicInteger(1);
+
+    Node(Folder folder, Node parent) {
+      this.folder = folder;
+      this.parent = parent;
+    }
+  }
+}
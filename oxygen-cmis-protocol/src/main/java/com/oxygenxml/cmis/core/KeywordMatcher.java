@@ -0,0 +1,254 @@
+package com.oxygenxml.cmis.core;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * Finds the first occurrence of any of several keywords in a text, reading the
+ * text only once (Aho-Corasick automaton). Matches don't span lines, like when
+ * searching line by line, but no line is ever built as a string.
+ */
+class KeywordMatcher {
+  /**
+   * Size of the buffer used to read the text.
+   */
+  private static final int BUFFER_SIZE = 8 * 1024;
+
+  /**
+   * The characters labeling the transitions out of each state.
+   */
+  private final List<char[]> labels = new ArrayList<>();
+  /**
+   * The states reached by the transitions out of each state.
+   */
+  private final List<int[]> targets = new ArrayList<>();
+  /**
+   * The state to continue from when a transition is missing.
+   */
+  private int[] fail;
+  /**
+   * Length of the keyword that ends in each state, 0 if none.
+   */
+  private int[] matchLength;
+  /**
+   * Length of the longest keyword.
+   */
+  private int maxKeywordLength;
+
+  /**
+   * Constructor.
+   *
+   * @param keywords
+   *          The keywords to look for. Empty ones are ignored.
+   */
+  KeywordMatcher(String... keywords) {
+    addState();
+    List<int[]> ends = new ArrayList<>();
+    for (String keyword : keywords) {
+      if (keyword != null && !keyword.isEmpty()) {
+        int state = 0;
+        for (int i = 0; i < keyword.length(); i++) {
+          int next = transition(state, keyword.charAt(i));
+          if (next == -1) {
+            next = addState();
+            addTransition(state, keyword.charAt(i), next);
+          }
+          state = next;
+        }
+        ends.add(new int[] { state, keyword.length() });
+        maxKeywordLength = Math.max(maxKeywordLength, keyword.length());
+      }
+    }
+
+    matchLength = new int[labels.size()];
+    for (int[] end : ends) {
+      matchLength[end[0]] = Math.max(matchLength[end[0]], end[1]);
+    }
+    computeFailures();
+  }
+
+  /**
+   * Links every state to the longest proper suffix that is also a state, in
+   * breadth first order.
+   */
+  private void computeFailures() {
+    fail = new int[labels.size()];
+    Deque<Integer> queue = new ArrayDeque<>();
+    for (int child : targets.get(0)) {
+      queue.add(child);
+    }
+
+    while (!queue.isEmpty()) {
+      int state = queue.poll();
+      char[] stateLabels = labels.get(state);
+      int[] stateTargets = targets.get(state);
+      for (int i = 0; i < stateLabels.length; i++) {
+        int child = stateTargets[i];
+        fail[child] = step(fail[state], stateLabels[i]);
+        // A keyword ending in the suffix also ends here.
+        if (matchLength[child] == 0) {
+          matchLength[child] = matchLength[fail[child]];
+        }
+        queue.add(child);
+      }
+    }
+  }
+
+  private int addState() {
+    labels.add(new char[0]);
+    targets.add(new int[0]);
+    return labels.size() - 1;
+  }
+
+  private void addTransition(int state, char c, int target) {
+    char[] stateLabels = labels.get(state);
+    int[] stateTargets = targets.get(state);
+    stateLabels = Arrays.copyOf(stateLabels, stateLabels.length + 1);
+    stateTargets = Arrays.copyOf(stateTargets, stateTargets.length + 1);
+    stateLabels[stateLabels.length - 1] = c;
+    stateTargets[stateTargets.length - 1] = target;
+    labels.set(state, stateLabels);
+    targets.set(state, stateTargets);
+  }
+
+  /**
+   * @return The state reached from the given one with the character, -1 if
+   *         there is no such transition.
+   */
+  private int transition(int state, char c) {
+    char[] stateLabels = labels.get(state);
+    for (int i = 0; i < stateLabels.length; i++) {
+      if (stateLabels[i] == c) {
+        return targets.get(state)[i];
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * @return The state reached after reading the character.
+   */
+  private int step(int state, char c) {
+    int next = transition(state, c);
+    while (next == -1 && state != 0) {
+      state = fail[state];
+      next = transition(state, c);
+    }
+    return next == -1 ? 0 : next;
+  }
+
+  /**
+   * Finds the first keyword in a text.
+   *
+   * @param text
+   *          The text.
+   * @param contextLength
+   *          Maximum length of the returned context.
+   *
+   * @return The keyword with the text around it on the same line, trimmed, or
+   *         <code>null</code> if no keyword was found.
+   */
+  String findContext(String text, int contextLength) {
+    try {
+      return findContext(new StringReader(text), contextLength);
+    } catch (IOException e) {
+      // Not thrown by a string reader.
+      throw new IllegalStateException(e);
+    }
+  }
+
+  /**
+   * Finds the first keyword in a text. The text is read only up to the end of
+   * the line with the first keyword.
+   *
+   * @param reader
+   *          The text.
+   * @param contextLength
+   *          Maximum length of the returned context.
+   *
+   * @return The keyword with the text around it on the same line, trimmed, or
+   *         <code>null</code> if no keyword was found.
+   *
+   * @throws IOException
+   *           Unable to read the text.
+   */
+  String findContext(Reader reader, int contextLength) throws IOException {
+    if (maxKeywordLength == 0) {
+      return null;
+    }
+
+    // The last characters of the line, enough for the keyword and the context
+    // before it.
+    char[] line = new char[contextLength + maxKeywordLength];
+    // Number of characters read from the line, without the leading spaces.
+    long lineLength = 0;
+    // The context after the keyword.
+    char[] after = new char[contextLength];
+    int afterLength = 0;
+    // Set once a keyword was found.
+    int found = 0;
+    long foundEnd = 0;
+
+    int state = 0;
+    char[] buffer = new char[BUFFER_SIZE];
+    int read;
+    reading: while ((read = reader.read(buffer)) != -1) {
+      for (int i = 0; i < read; i++) {
+        char c = buffer[i];
+        boolean lineEnd = c == '\n' || c == '\r';
+
+        if (found > 0) {
+          if (lineEnd || afterLength == after.length) {
+            break reading;
+          }
+          after[afterLength++] = c;
+
+        } else if (lineEnd) {
+          lineLength = 0;
+          state = 0;
+
+        } else if (lineLength > 0 || !Character.isWhitespace(c)) {
+          line[(int) (lineLength % line.length)] = c;
+          lineLength++;
+
+          state = step(state, c);
+          if (matchLength[state] > 0) {
+            found = matchLength[state];
+            foundEnd = lineLength;
+          }
+        }
+      }
+    }
+
+    return found > 0 ? buildContext(line, foundEnd, found, after, afterLength, contextLength) : null;
+  }
+
+  /**
+   * Builds the context of a keyword, keeping about as many characters before it
+   * as after it.
+   *
+   * @return The context, trimmed.
+   */
+  private static String buildContext(char[] line, long keywordEnd, int keywordLength, char[] after, int afterLength,
+      int contextLength) {
+    int room = Math.max(0, contextLength - keywordLength);
+    int beforeLength = (int) Math.min(keywordEnd - keywordLength, (long) line.length - keywordLength);
+
+    int takeAfter = Math.min(afterLength, room - Math.min(beforeLength, (room + 1) / 2));
+    int takeBefore = Math.min(beforeLength, room - takeAfter);
+
+    StringBuilder context = new StringBuilder(takeBefore + keywordLength + takeAfter);
+    for (long i = keywordEnd - keywordLength - takeBefore; i < keywordEnd; i++) {
+      context.append(line[(int) (i % line.length)]);
+    }
+    context.append(after, 0, takeAfter);
+
+    return context.toString().trim();
+  }
+}
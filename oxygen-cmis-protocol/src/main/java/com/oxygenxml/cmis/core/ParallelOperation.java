@@ -0,0 +1,281 @@
+package com.oxygenxml.cmis.core;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+
+import org.apache.chemistry.opencmis.commons.exceptions.CmisConnectionException;
+import org.apache.chemistry.opencmis.commons.exceptions.CmisRuntimeException;
+import org.apache.log4j.Logger;
+
+/**
+ * Runs a task on many items with a bounded number of threads. Items can be
+ * submitted while the operation runs, for example by a task that walks a
+ * folder and submits its children. Failed items are retried a few times, then
+ * reported in the list of failures.
+ *
+ * @param <T>
+ *          The type of the items.
+ */
+public class ParallelOperation<T> {
+  /**
+   * Logging.
+   */
+  private static final Logger logger = Logger.getLogger(ParallelOperation.class);
+
+  /**
+   * Default number of items processed at the same time.
+   */
+  public static final int DEFAULT_CONCURRENCY = 4;
+
+  /**
+   * Default number of times an item is tried.
+   */
+  public static final int DEFAULT_ATTEMPTS = 3;
+
+  /**
+   * Time to wait before retrying an item, multiplied by the attempt number.
+   */
+  private static final long RETRY_DELAY_MILLIS = 250;
+
+  /**
+   * The work done for an item.
+   *
+   * @param <T>
+   *          The type of the items.
+   */
+  @FunctionalInterface
+  public interface Task<T> {
+    /**
+     * @param item
+     *          The item.
+     *
+     * @throws Exception
+     *           The item could not be processed.
+     */
+    void run(T item) throws Exception;
+  }
+
+  /**
+   * Receives the progress of the operation. Called from the worker threads.
+   */
+  @FunctionalInterface
+  public interface ProgressListener {
+    /**
+     * @param completed
+     *          Number of items processed, successfully or not.
+     * @param submitted
+     *          Number of items submitted so far.
+     */
+    void progressChanged(int completed, int submitted);
+  }
+
+  /**
+   * An item that could not be processed.
+   *
+   * @param <T>
+   *          The type of the items.
+   */
+  public static class Failure<T> {
+    private final T item;
+    private final Exception error;
+
+    Failure(T item, Exception error) {
+      this.item = item;
+      this.error = error;
+    }
+
+    /**
+     * @return The item.
+     */
+    public T getItem() {
+      return item;
+    }
+
+    /**
+     * @return The error of the last attempt.
+     */
+    public Exception getError() {
+      return error;
+    }
+  }
+
+  private final ExecutorService executor;
+  private final int maxAttempts;
+  private final Predicate<Exception> retryable;
+  private final ProgressListener listener;
+
+  private final AtomicInteger submitted = new AtomicInteger();
+  private final AtomicInteger completed = new AtomicInteger();
+  private final List<Failure<T>> failures = Collections.synchronizedList(new ArrayList<>());
+
+  /**
+   * Guards the number of items not processed yet.
+   */
+  private final Object lock = new Object();
+  private int pending;
+
+  private volatile boolean canceled;
+
+  /**
+   * Constructor. Connection problems and server errors are retried.
+   *
+   * @param concurrency
+   *          Number of items processed at the same time.
+   * @param maxAttempts
+   *          Number of times an item is tried.
+   * @param listener
+   *          Receives the progress, may be <code>null</code>.
+   */
+  public ParallelOperation(int concurrency, int maxAttempts, ProgressListener listener) {
+    this(concurrency, maxAttempts, ParallelOperation::isTransient, listener);
+  }
+
+  /**
+   * Constructor.
+   *
+   * @param concurrency
+   *          Number of items processed at the same time.
+   * @param maxAttempts
+   *          Number of times an item is tried.
+   * @param retryable
+   *          Decides which errors are worth retrying.
+   * @param listener
+   *          Receives the progress, may be <code>null</code>.
+   */
+  public ParallelOperation(int concurrency, int maxAttempts, Predicate<Exception> retryable,
+      ProgressListener listener) {
+    this.executor = Executors.newFixedThreadPool(Math.max(1, concurrency), runnable -> {
+      Thread thread = new Thread(runnable, "CMIS parallel operation");
+      thread.setDaemon(true);
+      return thread;
+    });
+    this.maxAttempts = Math.max(1, maxAttempts);
+    this.retryable = retryable;
+    this.listener = listener;
+  }
+
+  /**
+   * @param e
+   *          An error.
+   *
+   * @return <code>true</code> for connection problems and server errors, that
+   *         might not happen again.
+   */
+  public static boolean isTransient(Exception e) {
+    return e instanceof CmisConnectionException || e instanceof CmisRuntimeException;
+  }
+
+  /**
+   * Submits an item. Ignored after the operation was canceled.
+   *
+   * @param item
+   *          The item.
+   * @param task
+   *          The work done for the item.
+   */
+  public void submit(T item, Task<T> task) {
+    if (canceled) {
+      return;
+    }
+
+    synchronized (lock) {
+      pending++;
+    }
+    submitted.incrementAndGet();
+    executor.execute(() -> run(item, task));
+  }
+
+  private void run(T item, Task<T> task) {
+    try {
+      for (int attempt = 1; !canceled; attempt++) {
+        try {
+          task.run(item);
+          break;
+        } catch (Exception e) {
+          if (attempt >= maxAttempts || !retryable.test(e)) {
+            logger.debug("Unable to process " + item, e);
+            failures.add(new Failure<>(item, e));
+            break;
+          }
+
+          Thread.sleep(RETRY_DELAY_MILLIS * attempt);
+        }
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    } finally {
+      int done = completed.incrementAndGet();
+      if (listener != null) {
+        listener.progressChanged(done, submitted.get());
+      }
+
+      synchronized (lock) {
+        pending--;
+        if (pending == 0) {
+          lock.notifyAll();
+        }
+      }
+    }
+  }
+
+  /**
+   * Reports an item that could not be processed, found by the caller after the
+   * tasks ran. It is listed together with the failures of the tasks.
+   *
+   * @param item
+   *          The item.
+   * @param error
+   *          Why the item could not be processed.
+   */
+  public void reportFailure(T item, Exception error) {
+    failures.add(new Failure<>(item, error));
+  }
+
+  /**
+   * Stops the operation. The items being processed are finished, the others
+   * are dropped.
+   */
+  public void cancel() {
+    canceled = true;
+  }
+
+  /**
+   * @return <code>true</code> if the operation was canceled.
+   */
+  public boolean isCanceled() {
+    return canceled;
+  }
+
+  /**
+   * Waits for all the submitted items, including those submitted by the tasks,
+   * then releases the threads.
+   *
+   * @return The items that could not be processed.
+   *
+   * @throws InterruptedException
+   *           Interrupted while waiting.
+   */
+  public List<Failure<T>> await() throws InterruptedException {
+    try {
+      synchronized (lock) {
+        while (pending > 0) {
+          lock.wait();
+        }
+      }
+    } catch (InterruptedException e) {
+      cancel();
+      throw e;
+    } finally {
+      executor.shutdown();
+    }
+
+    synchronized (failures) {
+      return new ArrayList<>(failures);
+    }
+  }
+}
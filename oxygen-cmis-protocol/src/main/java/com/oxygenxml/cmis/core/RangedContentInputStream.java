@@ -0,0 +1,161 @@
+package com.oxygenxml.cmis.core;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Reads the content of a document in chunks, each one requested separately
+ * from the server as a range, and stops after a maximum number of bytes. If the
+ * server ignores the requested ranges and sends the whole content, the first
+ * response is read until the limit instead.
+ *
+ * When the content length is known it should be given as the limit. Otherwise,
+ * for a content that ends exactly at the end of a range, one more range is
+ * requested after the end.
+ */
+class RangedContentInputStream extends InputStream {
+  /**
+   * Opens a range of the content.
+   */
+  @FunctionalInterface
+  interface RangeSource {
+    /**
+     * @param offset
+     *          The first byte of the range.
+     * @param length
+     *          The number of bytes in the range.
+     *
+     * @return The content of the range or <code>null</code> if there is no
+     *         content at that offset.
+     *
+     * @throws IOException
+     *           Unable to get the content.
+     */
+    InputStream open(long offset, long length) throws IOException;
+  }
+
+  /**
+   * Opens the ranges.
+   */
+  private final RangeSource source;
+  /**
+   * Number of bytes requested at once.
+   */
+  private final int chunkSize;
+  /**
+   * Number of bytes that can still be read.
+   */
+  private long remaining;
+  /**
+   * Offset of the next range to request.
+   */
+  private long offset;
+  /**
+   * The range being read, <code>null</code> before requesting the next one.
+   */
+  private InputStream current;
+  /**
+   * Bytes left to read from the current range.
+   */
+  private long currentRemaining;
+  /**
+   * <code>true</code> if the server sent more than the requested range.
+   */
+  private boolean rangesIgnored;
+  /**
+   * <code>true</code> after the end of the content.
+   */
+  private boolean endReached;
+
+  /**
+   * Constructor.
+   *
+   * @param source
+   *          Opens the ranges.
+   * @param chunkSize
+   *          Number of bytes requested at once.
+   * @param maxBytes
+   *          Maximum number of bytes read from the content.
+   */
+  RangedContentInputStream(RangeSource source, int chunkSize, long maxBytes) {
+    this.source = source;
+    this.chunkSize = chunkSize;
+    this.remaining = maxBytes;
+  }
+
+  @Override
+  public int read() throws IOException {
+    byte[] one = new byte[1];
+    int read = read(one, 0, 1);
+    return read == -1 ? -1 : one[0] & 0xFF;
+  }
+
+  @Override
+  public int read(byte[] b, int off, int len) throws IOException {
+    if (len == 0) {
+      return 0;
+    }
+
+    while (remaining > 0 && !endReached) {
+      if (current == null) {
+        long length = Math.min(chunkSize, remaining);
+        current = source.open(offset, length);
+        if (current == null) {
+          endReached = true;
+          break;
+        }
+        currentRemaining = length;
+      }
+
+      int read;
+      if (rangesIgnored || currentRemaining > 0) {
+        int toRead = (int) Math.min(len, remaining);
+        if (!rangesIgnored) {
+          toRead = (int) Math.min(toRead, currentRemaining);
+        }
+        read = current.read(b, off, toRead);
+      } else {
+        // The whole range was read. More bytes mean the server sent everything.
+        read = current.read(b, off, 1);
+        rangesIgnored = read != -1;
+      }
+
+      if (read == -1) {
+        closeCurrent();
+        // A short range means the end of the content.
+        if (rangesIgnored || currentRemaining > 0) {
+          endReached = true;
+        }
+      } else if (read > 0) {
+        remaining -= read;
+        offset += read;
+        currentRemaining -= read;
+        return read;
+      }
+    }
+
+    return -1;
+  }
+
+  @Override
+  public void close() throws IOException {
+    endReached = true;
+    closeCurrent();
+  }
+
+  /**
+   * Closes the range being read.
+   *
+   * @throws IOException
+   *           Unable to close the range.
+   */
+  private void closeCurrent() throws IOException {
+    if (current != null) {
+      try {
+        current.close();
+      } finally {
+        current = null;
+      }
+    }
+  }
+}
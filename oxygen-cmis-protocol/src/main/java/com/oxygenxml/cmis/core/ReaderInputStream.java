@@ -0,0 +1,107 @@
+package com.oxygenxml.cmis.core;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+
+/**
+ * Encodes the characters of a reader as they are read, so that the content
+ * never has to be held in memory as a whole.
+ */
+class ReaderInputStream extends InputStream {
+  /**
+   * Number of characters read at once.
+   */
+  private static final int BUFFER_SIZE = 8 * 1024;
+
+  private final Reader reader;
+  private final CharsetEncoder encoder;
+  private final CharBuffer chars = CharBuffer.allocate(BUFFER_SIZE);
+  private final ByteBuffer bytes;
+
+  /**
+   * <code>true</code> after the reader returned all its characters.
+   */
+  private boolean endOfInput;
+  /**
+   * <code>true</code> after the encoder was flushed.
+   */
+  private boolean flushed;
+
+  /**
+   * Constructor.
+   *
+   * @param reader
+   *          The characters.
+   * @param charset
+   *          The encoding.
+   */
+  ReaderInputStream(Reader reader, Charset charset) {
+    this.reader = reader;
+    this.encoder = charset.newEncoder()
+        .onMalformedInput(CodingErrorAction.REPLACE)
+        .onUnmappableCharacter(CodingErrorAction.REPLACE);
+    this.bytes = ByteBuffer.allocate((int) Math.ceil(BUFFER_SIZE * encoder.maxBytesPerChar()));
+
+    // Both buffers start empty.
+    chars.flip();
+    bytes.flip();
+  }
+
+  @Override
+  public int read() throws IOException {
+    byte[] b = new byte[1];
+    return read(b, 0, 1) == -1 ? -1 : b[0] & 0xFF;
+  }
+
+  @Override
+  public int read(byte[] b, int off, int len) throws IOException {
+    if (len == 0) {
+      return 0;
+    }
+
+    while (!bytes.hasRemaining()) {
+      if (flushed) {
+        return -1;
+      }
+      fill();
+    }
+
+    int count = Math.min(len, bytes.remaining());
+    bytes.get(b, off, count);
+    return count;
+  }
+
+  /**
+   * Encodes the next characters.
+   */
+  private void fill() throws IOException {
+    if (!endOfInput) {
+      chars.compact();
+      int read = reader.read(chars);
+      chars.flip();
+      endOfInput = read == -1;
+    }
+
+    bytes.clear();
+    CoderResult result = encoder.encode(chars, bytes, endOfInput);
+    if (result.isError()) {
+      result.throwException();
+    }
+    if (endOfInput && result.isUnderflow()) {
+      flushed = encoder.flush(bytes).isUnderflow();
+    }
+    bytes.flip();
+  }
+
+  @Override
+  public void close() throws IOException {
+    reader.close();
+  }
+}
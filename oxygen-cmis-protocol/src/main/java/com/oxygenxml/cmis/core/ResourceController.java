@@ -1,27 +1,39 @@
 package com.oxygenxml.cmis.core;
 
 import java.io.ByteArrayInputStream;
-import java.io.InputStreamReader;
+import java.io.IOException;
+import java.io.InputStream;
 import java.io.Reader;
 import java.io.UnsupportedEncodingException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
-import javax.swing.JOptionPane;
 
 import org.apache.chemistry.opencmis.client.api.CmisObject;
 import org.apache.chemistry.opencmis.client.api.Document;
+import org.apache.chemistry.opencmis.client.api.DocumentType;
 import org.apache.chemistry.opencmis.client.api.Folder;
+import org.apache.chemistry.opencmis.client.api.ObjectId;
 import org.apache.chemistry.opencmis.client.api.Session;
 import org.apache.chemistry.opencmis.commons.PropertyIds;
 import org.apache.chemistry.opencmis.commons.data.ContentStream;
 import org.apache.chemistry.opencmis.commons.enums.UnfileObject;
 import org.apache.chemistry.opencmis.commons.enums.VersioningState;
+import org.apache.chemistry.opencmis.commons.exceptions.CmisConnectionException;
 import org.apache.chemistry.opencmis.commons.exceptions.CmisConstraintException;
+import org.apache.chemistry.opencmis.commons.exceptions.CmisInvalidArgumentException;
+import org.apache.chemistry.opencmis.commons.exceptions.CmisNotSupportedException;
+import org.apache.chemistry.opencmis.commons.exceptions.CmisObjectNotFoundException;
+import org.apache.chemistry.opencmis.commons.spi.Holder;
 import org.apache.log4j.Logger;
 
+import com.oxygenxml.cmis.core.urlhandler.ContentDigestCache;
+
 public class ResourceController {
   /**
    * Logging.
@@ -49,7 +61,8 @@ public class ResourceController {
   }
 
   /**
-   * CREATE DOCUMENT METHOD
+   * CREATE DOCUMENT METHOD. The content is encoded before sending, so its
+   * length is known.
    * 
    * @param path
    * @param filename
@@ -59,16 +72,60 @@ public class ResourceController {
    */
   public Document createDocument(Folder path, String filename, String content, String mimeType)
       throws UnsupportedEncodingException, CmisConstraintException {
-    // TODO Pass a Reader instead of a String as content.
-
-    String mimetype = mimeType.concat("; charset=UTF-8");
-
     byte[] contentBytes = content.getBytes(ENCODING);
-    ByteArrayInputStream stream = new ByteArrayInputStream(contentBytes);
+    return createDocument(path, filename, new ByteArrayInputStream(contentBytes), contentBytes.length,
+        mimeType.concat("; charset=" + ENCODING));
+  }
+
+  /**
+   * CREATE DOCUMENT METHOD with the content read from a reader. The content is
+   * encoded as it is sent, with chunked transfer.
+   * 
+   * @param path
+   * @param filename
+   * @param content
+   *          The content, closed at the end.
+   * @param mimeType
+   * @return
+   */
+  public Document createDocument(Folder path, String filename, Reader content, String mimeType) {
+    return createDocument(path, filename, new ReaderInputStream(content, StandardCharsets.UTF_8), -1,
+        mimeType.concat("; charset=" + ENCODING));
+  }
 
-    ContentStream contentStream = session.getObjectFactory().createContentStream(filename, contentBytes.length,
-        mimetype, stream);
+  /**
+   * CREATE DOCUMENT METHOD with the content of a file.
+   * 
+   * @param path
+   * @param filename
+   * @param content
+   *          The file.
+   * @param mimeType
+   * @return
+   * @throws IOException
+   *           Unable to read the file.
+   */
+  public Document createDocument(Folder path, String filename, Path content, String mimeType) throws IOException {
+    return createDocument(path, filename, Files.newInputStream(content), Files.size(content), mimeType);
+  }
 
+  /**
+   * CREATE DOCUMENT METHOD with the content read from a stream.
+   * 
+   * @param path
+   * @param filename
+   * @param content
+   *          The content, closed at the end.
+   * @param length
+   *          The length of the content, -1 if unknown. The content is sent
+   *          with chunked transfer when the length is unknown.
+   * @param mimeType
+   * @return
+   * @throws CmisConnectionException
+   *           Unable to read the content.
+   */
+  public Document createDocument(Folder path, String filename, InputStream content, long length,
+      String mimeType) {
     // prepare properties
     Map<String, Object> properties = new HashMap<>();
 
@@ -76,17 +133,18 @@ public class ResourceController {
     properties.put(PropertyIds.OBJECT_TYPE_ID, OBJ_TYPE);
 
     // create the document
-    try {
+    try (InputStream stream = content) {
+      ContentStream contentStream = session.getObjectFactory().createContentStream(filename, length, mimeType,
+          stream);
       return path.createDocument(properties, contentStream, VersioningState.NONE);
-    } catch (Exception e2) {
-      // Show the exception if there is one
-      JOptionPane.showMessageDialog(null, "Exception " + e2.getMessage());
+    } catch (IOException e) {
+      throw new CmisConnectionException("Unable to read the content of " + filename, e);
     }
-    return null;
   }
 
   /**
-   * CREATE DOCUMENT METHOD
+   * CREATE DOCUMENT METHOD. The content is encoded before sending, so its
+   * length is known.
    * 
    * @param path
    * @param filename
@@ -98,32 +156,76 @@ public class ResourceController {
    */
   public Document createVersionedDocument(Folder path, String filename, String content, String mimetype,
       String objectType, VersioningState versioningState) throws UnsupportedEncodingException {
-
     byte[] contentBytes = content.getBytes(ENCODING);
-    ByteArrayInputStream stream = new ByteArrayInputStream(contentBytes);
+    return createVersionedDocument(path, filename, new ByteArrayInputStream(contentBytes), contentBytes.length,
+        mimetype, objectType, versioningState);
+  }
 
-    ContentStream contentStream = session.getObjectFactory().createContentStream(filename, contentBytes.length,
-        mimetype, stream);
+  /**
+   * CREATE DOCUMENT METHOD with the content read from a reader and encoded as
+   * UTF-8 as it is sent, with chunked transfer.
+   * 
+   * @param path
+   * @param filename
+   * @param content
+   *          The content, closed at the end.
+   * @param mimetype
+   * @param objectType
+   * @param versioningState
+   * @return
+   */
+  public Document createVersionedDocument(Folder path, String filename, Reader content, String mimetype,
+      String objectType, VersioningState versioningState) {
+    return createVersionedDocument(path, filename, new ReaderInputStream(content, StandardCharsets.UTF_8), -1,
+        mimetype, objectType, versioningState);
+  }
 
-    // prepare properties
-    Map<String, Object> properties = new HashMap<>();
-    properties.put(PropertyIds.NAME, filename);
+  /**
+   * CREATE DOCUMENT METHOD with the content of a file.
+   * 
+   * @param path
+   * @param filename
+   * @param content
+   *          The file.
+   * @param mimetype
+   * @param objectType
+   * @param versioningState
+   * @return
+   * @throws IOException
+   *           Unable to read the file.
+   */
+  public Document createVersionedDocument(Folder path, String filename, Path content, String mimetype,
+      String objectType, VersioningState versioningState) throws IOException {
+    return createVersionedDocument(path, filename, Files.newInputStream(content), Files.size(content), mimetype,
+        objectType, versioningState);
+  }
 
-    /**
-     * If repository or server doesn't support OBJECT_TYPE_ID like
-     * "VersionableType" we catch the error and try to put in properties default
-     * for open-cmis Object Id - "cmis:document".
-     * 
-     */
-    Document document = null;
-    try {
-      properties.put(PropertyIds.OBJECT_TYPE_ID, objectType);
-      document = path.createDocument(properties, contentStream, versioningState);
-    } catch (Exception e) {
-      properties.put(PropertyIds.OBJECT_TYPE_ID, OBJ_TYPE);
-      document = path.createDocument(properties, contentStream, versioningState);
+  /**
+   * CREATE DOCUMENT METHOD with the content read from a stream.
+   * 
+   * @param path
+   * @param filename
+   * @param content
+   *          The content, closed at the end.
+   * @param length
+   *          The length of the content, -1 if unknown. The content is sent
+   *          with chunked transfer when the length is unknown.
+   * @param mimetype
+   * @param objectType
+   * @param versioningState
+   * @return
+   * @throws CmisConnectionException
+   *           Unable to read the content.
+   */
+  public Document createVersionedDocument(Folder path, String filename, InputStream content, long length,
+      String mimetype, String objectType, VersioningState versioningState) {
+    try (InputStream stream = content) {
+      ContentStream contentStream = session.getObjectFactory().createContentStream(filename, length, mimetype,
+          stream);
+      return createVersionedDocument(path, filename, contentStream, objectType, versioningState);
+    } catch (IOException e) {
+      throw new CmisConnectionException("Unable to read the content of " + filename, e);
     }
-    return document;
   }
 
   /**
@@ -143,22 +245,93 @@ public class ResourceController {
     // prepare properties
     Map<String, Object> properties = new HashMap<>();
     properties.put(PropertyIds.NAME, filename);
+    properties.put(PropertyIds.OBJECT_TYPE_ID, getDocumentType(objectType));
+
+    return path.createDocument(properties, contentStream, versioningState);
+  }
+
+  /**
+   * If repository or server doesn't support OBJECT_TYPE_ID like
+   * "VersionableType" the default for open-cmis Object Id - "cmis:document" is
+   * used. The type is checked before sending the content, because a stream can
+   * be sent only once.
+   * 
+   * @param objectType
+   *          The wanted document type.
+   * @return The wanted type, if the repository has it, "cmis:document"
+   *         otherwise.
+   */
+  private String getDocumentType(String objectType) {
+    if (!OBJ_TYPE.equals(objectType)) {
+      try {
+        // The session caches the type definitions.
+        session.getTypeDefinition(objectType);
+      } catch (CmisObjectNotFoundException | CmisInvalidArgumentException e) {
+        logger.debug("Type not supported, using " + OBJ_TYPE + ": " + objectType);
+        return OBJ_TYPE;
+      }
+    }
+    return objectType;
+  }
+
+  /**
+   * COPY a document to a folder. The repository copies it from the source when
+   * it can. Otherwise the content is streamed from the source to the new
+   * document, with the same MIME type and length, without being buffered.
+   * 
+   * @param source
+   *          The document to copy.
+   * @param target
+   *          The folder that receives the copy.
+   * @return The copy.
+   */
+  public Document copyDocument(Document source, Folder target) {
+    DocumentType type = (DocumentType) source.getType();
+    VersioningState versioningState = Boolean.TRUE.equals(type.isVersionable()) ? VersioningState.MAJOR
+        : VersioningState.NONE;
 
-    /**
-     * If repository or server doesn't support OBJECT_TYPE_ID like
-     * "VersionableType" we catch the error and try to put in properties default
-     * for open-cmis Object Id - "cmis:document".
-     * 
-     */
-    Document document = null;
     try {
-      properties.put(PropertyIds.OBJECT_TYPE_ID, objectType);
-      document = path.createDocument(properties, contentStream, versioningState);
-    } catch (Exception e) {
-      properties.put(PropertyIds.OBJECT_TYPE_ID, OBJ_TYPE);
-      document = path.createDocument(properties, contentStream, versioningState);
+      ObjectId copyId = session.createDocumentFromSource(source, null, target, versioningState);
+      return (Document) session.getObject(copyId);
+    } catch (CmisNotSupportedException e) {
+      logger.debug("The repository can't copy documents, streaming the content: " + e.getMessage());
+    }
+
+    Map<String, Object> properties = new HashMap<>();
+    properties.put(PropertyIds.NAME, source.getName());
+    properties.put(PropertyIds.OBJECT_TYPE_ID, type.getId());
+
+    ContentStream sourceContent = source.getContentStream();
+    if (sourceContent == null) {
+      return target.createDocument(properties, null, versioningState);
+    }
+
+    try (InputStream stream = sourceContent.getStream()) {
+      ContentStream content = session.getObjectFactory().createContentStream(source.getContentStreamFileName(),
+          source.getContentStreamLength(), source.getContentStreamMimeType(), stream);
+      return target.createDocument(properties, content, versioningState);
+    } catch (IOException e) {
+      throw new CmisConnectionException("Unable to copy " + source.getName(), e);
     }
-    return document;
+  }
+
+  /**
+   * COPY a folder tree. The folders are created before their children, the
+   * documents are copied in parallel by the given operation.
+   * 
+   * @param source
+   *          The folder to copy.
+   * @param targetParent
+   *          The folder that receives the copy.
+   * @param operation
+   *          Copies the objects. Awaited before returning.
+   * @return The copy of the folder.
+   * @throws InterruptedException
+   *           Interrupted while waiting for the operation.
+   */
+  public Folder copyFolderTree(Folder source, Folder targetParent, ParallelOperation<CmisObject> operation)
+      throws InterruptedException {
+    return new FolderTreeCopier(this, operation).copy(source, targetParent);
   }
 
   /**
@@ -170,6 +343,7 @@ public class ResourceController {
    * @return
    */
   public boolean move(Folder sourceFolder, Folder targetFolder, Document doc) {
+    ContentDigestCache.getInstance().invalidateDocument(doc);
     return doc.move(sourceFolder, targetFolder) != null;
   }
 
@@ -243,6 +417,28 @@ public class ResourceController {
     return Collections.emptyList();
   }
 
+  /**
+   * DELETE a large folder tree. A single deleteTree request is tried first. If
+   * it fails or leaves objects behind, the rest of the tree is deleted
+   * bottom-up by the given operation, in parallel.
+   * 
+   * @param folder
+   *          The folder.
+   * @param operation
+   *          Deletes the objects one by one. Awaited before returning.
+   * @return The IDs of the objects that were not deleted.
+   * @throws InterruptedException
+   *           Interrupted while waiting for the operation.
+   */
+  public List<String> deleteFolderTree(Folder folder, ParallelOperation<CmisObject> operation)
+      throws InterruptedException {
+    if (folder != null) {
+      return new FolderTreeDeleter(operation).delete(folder);
+    }
+
+    return Collections.emptyList();
+  }
+
   /**
    * RENAME
    * 
@@ -254,6 +450,28 @@ public class ResourceController {
     return folder.rename(newName);
   }
 
+  /**
+   * CHECK IN a private working copy, keeping its content. The private working
+   * copy is not fetched from the server.
+   * 
+   * @param pwcId
+   *          The ID of the private working copy.
+   * @param major
+   *          <code>true</code> for a major version.
+   * @param comment
+   *          The check-in comment.
+   * @return The ID of the new version.
+   */
+  public String checkIn(String pwcId, boolean major, String comment) {
+    Holder<String> objectId = new Holder<>(pwcId);
+    session.getBinding().getVersioningService().checkIn(session.getRepositoryInfo().getId(), objectId, major, null,
+        null, comment, null, null, null, null);
+    session.removeObjectFromCache(pwcId);
+    ContentDigestCache.getInstance().invalidateObject(pwcId);
+
+    return objectId.getValue();
+  }
+
   /**
    * GET DOC
    * 
@@ -279,27 +497,32 @@ public class ResourceController {
   }
 
   /**
-   * GET DOCUMENT CONTENT
+   * GET DOCUMENT CONTENT. Only the content is requested, not the document. The
+   * charset is taken from the MIME type of the content or from the XML
+   * declaration, UTF-8 by default.
    * 
    * @param docID
-   * @return
+   * @return The content, <code>null</code> if there is no such document or it
+   *         has no content.
    * @throws UnsupportedEncodingException
    */
   public Reader getDocumentContent(String docID) throws UnsupportedEncodingException {
-    Document document = null;
     if (docID != null) {
+      ContentStream contentStream = null;
       try {
-        document = (Document) session.getObject(docID);
-      } catch (org.apache.chemistry.opencmis.commons.exceptions.CmisObjectNotFoundException e) {
+        contentStream = session.getContentStream(session.createObjectId(docID));
+      } catch (CmisObjectNotFoundException e) {
         logger.info("No object found");
+      } catch (CmisConstraintException e) {
+        logger.info("The document has no content");
       }
-      if (document != null) {
-        ContentStream contentStream = document.getContentStream();
-
-        java.io.InputStream stream = contentStream.getStream();
 
-        // TODO Get the encoding dynamically.
-        return new InputStreamReader(stream, ENCODING);
+      if (contentStream != null) {
+        try {
+          return ContentReader.open(contentStream.getStream(), contentStream.getMimeType());
+        } catch (IOException e) {
+          throw new CmisConnectionException("Unable to read the content of " + docID, e);
+        }
       }
     }
     return null;
@@ -1,23 +1,48 @@
 package com.oxygenxml.cmis.core;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.io.Reader;
+import java.math.BigInteger;
 import java.util.ArrayList;
+import java.util.GregorianCalendar;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
-import java.util.Scanner;
+import java.util.Map;
+import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
 
 import org.apache.chemistry.opencmis.client.api.CmisObject;
 import org.apache.chemistry.opencmis.client.api.Document;
 import org.apache.chemistry.opencmis.client.api.Folder;
 import org.apache.chemistry.opencmis.client.api.ItemIterable;
 import org.apache.chemistry.opencmis.client.api.OperationContext;
+import org.apache.chemistry.opencmis.client.api.Session;
 import org.apache.chemistry.opencmis.client.runtime.OperationContextImpl;
+import org.apache.chemistry.opencmis.commons.PropertyIds;
+import org.apache.chemistry.opencmis.commons.SessionParameter;
+import org.apache.chemistry.opencmis.commons.data.ContentStream;
+import org.apache.chemistry.opencmis.commons.data.ObjectParentData;
+import org.apache.chemistry.opencmis.commons.data.PropertyData;
 import org.apache.chemistry.opencmis.commons.enums.IncludeRelationships;
+import org.apache.chemistry.opencmis.commons.exceptions.CmisInvalidArgumentException;
+import org.apache.chemistry.opencmis.commons.exceptions.CmisNotSupportedException;
+import org.apache.chemistry.opencmis.commons.exceptions.CmisRuntimeException;
 
 import org.apache.log4j.Logger;
 
+import com.oxygenxml.cmis.core.cache.ExpiringCache;
 import com.oxygenxml.cmis.core.model.IDocument;
 import com.oxygenxml.cmis.core.model.IResource;
 import com.oxygenxml.cmis.core.model.impl.DocumentImpl;
@@ -32,6 +57,88 @@ public class SearchController {
   private static final String DOCUMENT_TYPE = "cmis:document";
   public static final int SEARCH_IN_DOCUMENT = 1;
   public static final int SEARCH_IN_FOLDER = 2;
+  /**
+   * Number of results requested from the server at once.
+   */
+  public static final int RESULTS_PAGE_SIZE = 100;
+  /**
+   * Number of documents requested at once when only one is needed.
+   */
+  private static final int ENABLEMENT_PAGE_SIZE = 10;
+  /**
+   * Number of bytes of content requested at once when looking for a line.
+   */
+  private static final int SNIPPET_CHUNK_SIZE = 64 * 1024;
+  /**
+   * Maximum number of bytes of a document scanned when looking for a line.
+   */
+  private static final long SNIPPET_MAX_BYTES = 1024 * 1024L;
+  /**
+   * Number of queries run at the same time, for all the searches.
+   */
+  private static final int SEARCH_THREADS = 4;
+  /**
+   * Runs the queries of a search that are sent at the same time.
+   */
+  private static final ExecutorService executor = new ThreadPoolExecutor(SEARCH_THREADS, SEARCH_THREADS, 0L,
+      TimeUnit.MILLISECONDS, new LinkedBlockingQueue<Runnable>(), runnable -> {
+        Thread thread = new Thread(runnable, "CMIS search");
+        thread.setDaemon(true);
+        return thread;
+      });
+  /**
+   * The lines found, by document ID, change token and searched text. A document
+   * without a matching line maps to an empty value.
+   */
+  private static final ExpiringCache<String, Optional<String>> snippets = ExpiringCache.expireAfterAccess(1000,
+      30 * 60 * 1000L);
+  /**
+   * The names of the root folders, by server URL and repository ID. Read once,
+   * not for every page of results.
+   */
+  private static final ExpiringCache<String, String> rootFolderNames = ExpiringCache.expireAfterAccess(100,
+      30 * 60 * 1000L);
+  /**
+   * The properties selected by a document search, all that is needed to present
+   * a result and to decide which actions are enabled on it.
+   */
+  private static final String[] DOCUMENT_RESULT_PROPERTIES = {
+      PropertyIds.OBJECT_ID,
+      PropertyIds.OBJECT_TYPE_ID,
+      PropertyIds.BASE_TYPE_ID,
+      PropertyIds.NAME,
+      PropertyIds.DESCRIPTION,
+      PropertyIds.CREATED_BY,
+      PropertyIds.CREATION_DATE,
+      PropertyIds.LAST_MODIFIED_BY,
+      PropertyIds.LAST_MODIFICATION_DATE,
+      PropertyIds.CHANGE_TOKEN,
+      PropertyIds.VERSION_SERIES_ID,
+      PropertyIds.IS_LATEST_VERSION,
+      PropertyIds.IS_VERSION_SERIES_CHECKED_OUT,
+      PropertyIds.VERSION_SERIES_CHECKED_OUT_ID,
+      PropertyIds.VERSION_SERIES_CHECKED_OUT_BY,
+      PropertyIds.IS_PRIVATE_WORKING_COPY,
+      PropertyIds.CONTENT_STREAM_ID,
+      PropertyIds.CONTENT_STREAM_LENGTH,
+      PropertyIds.CONTENT_STREAM_MIME_TYPE,
+      PropertyIds.CONTENT_STREAM_FILE_NAME };
+  /**
+   * The properties selected by a folder search. The path comes with the folder.
+   */
+  private static final String[] FOLDER_RESULT_PROPERTIES = {
+      PropertyIds.OBJECT_ID,
+      PropertyIds.OBJECT_TYPE_ID,
+      PropertyIds.BASE_TYPE_ID,
+      PropertyIds.NAME,
+      PropertyIds.DESCRIPTION,
+      PropertyIds.CREATED_BY,
+      PropertyIds.CREATION_DATE,
+      PropertyIds.LAST_MODIFIED_BY,
+      PropertyIds.LAST_MODIFICATION_DATE,
+      PropertyIds.CHANGE_TOKEN,
+      PropertyIds.PATH,
+      PropertyIds.PARENT_ID };
 
   /**
    * Logic operators for the search that are supposed to be upper case
@@ -66,15 +173,12 @@ public class SearchController {
    * Returns the resources searched by name either is a document or a folder
    * 
    * 
-   * @param cmisType
    * @param name
-   * @param oc
+   * @param searchObjectTypes
+   * @param handler
+   *          Receives the results page by page.
    */
-  private List<IResource> queryResourceName(String name, int searchObjectTypes) {
-    ArrayList<IResource> resources = new ArrayList<>();
-
-    OperationContext oc = ctrl.getSession().createOperationContext();
-
+  private void queryResourceName(String name, int searchObjectTypes, SearchResultsHandler handler) {
     String scope = "";
 
     if ((searchObjectTypes & SEARCH_IN_DOCUMENT) != 0) {
@@ -89,188 +193,389 @@ public class SearchController {
     }
 
     ItemIterable<CmisObject> results = ctrl.getSession().queryObjects(scope, "cmis:name LIKE '%" + name + "%'", false,
-        oc);
+        createResultsContext(scope));
 
-    for (CmisObject cmisObject : results) {
-      IResource res = null;
-      if (cmisObject instanceof Document) {
-        res = new DocumentImpl((Document) cmisObject);
-      } else {
-        res = new FolderImpl((Folder) cmisObject);
-      }
+    deliverResults(results, false, handler);
+  }
+
+  /**
+   * Creates the context of a search. The query selects only the properties
+   * needed to present the results, so a page of results comes with one request
+   * and presenting it needs no other, except for the paths of the documents.
+   * 
+   * @param scope
+   *          The searched type.
+   * 
+   * @return The context.
+   */
+  private static OperationContext createResultsContext(String scope) {
+    OperationContextImpl oc = new OperationContextImpl();
+    oc.setFilterString(String.join(",", FOLDER_TYPE.equals(scope) ? FOLDER_RESULT_PROPERTIES
+        : DOCUMENT_RESULT_PROPERTIES));
+    oc.setIncludeAllowableActions(true);
+    oc.setIncludeRelationships(IncludeRelationships.NONE);
+    oc.setIncludePolicies(false);
+    oc.setRenditionFilterString("cmis:none");
+    oc.setMaxItemsPerPage(RESULTS_PAGE_SIZE);
+    return oc;
+  }
+
+  /**
+   * Gets the paths of many documents, as presented in the search results. The
+   * parents are requested through the session of this controller, not through
+   * the sessions the documents were found with.
+   * 
+   * CMIS has no call that returns the parents of many objects, so this costs
+   * one server call for each document. The name of the root folder is read
+   * once per repository and remembered.
+   * 
+   * @param documents
+   *          The documents.
+   * 
+   * @return The paths, by document ID. The documents whose path could not be
+   *         read are missing.
+   */
+  public Map<String, String> getDocumentPaths(List<DocumentImpl> documents) {
+    Map<String, String> paths = new HashMap<>();
+    if (documents.isEmpty()) {
+      return paths;
+    }
 
-      resources.add(res);
+    String rootName = getRootFolderName();
+    for (DocumentImpl doc : documents) {
+      try {
+        paths.put(doc.getId(), DocumentImpl.getDocumentPath(rootName, getPaths(doc.getId())));
+      } catch (RuntimeException e) {
+        logger.debug("Unable to get the path of " + doc.getId(), e);
+      }
     }
 
-    return resources;
+    return paths;
+  }
+
+  /**
+   * @return The name of the root folder of the repository. Requested from the
+   *         server only the first time.
+   */
+  private String getRootFolderName() {
+    Session session = ctrl.getSession();
+    String key = session.getSessionParameters().get(SessionParameter.ATOMPUB_URL) + "/"
+        + session.getRepositoryInfo().getId();
+    String rootName = rootFolderNames.get(key);
+    if (rootName == null) {
+      rootName = ctrl.getRootFolder().getName();
+      rootFolderNames.put(key, rootName);
+    }
+    return rootName;
   }
 
   /**
-   * Find all the foreign resources by getting the personal documents and then
-   * eliminate the other documents from all resources with given search keys.
+   * Gets the paths of a document from its parents, with the path of each
+   * parent and the name of the document in it.
    * 
-   * @param content
-   * @param searchObjectTypes
-   * @return
+   * @param objectId
+   *          The ID of the document.
+   * 
+   * @return The paths.
    */
-  private List<IResource> queryPersonalCheckedoutDocs(String toSearch, int searchObjectTypes) {
-    List<DocumentImpl> personalDocuments = new ArrayList<>();
-    List<String> idResources = new ArrayList<>();
-    List<IResource> generalResults = new ArrayList<>();
+  private List<String> getPaths(String objectId) {
+    Session session = ctrl.getSession();
+    List<ObjectParentData> parents = session.getBinding().getNavigationService().getObjectParents(
+        session.getRepositoryInfo().getId(), objectId, PropertyIds.PATH, false, IncludeRelationships.NONE,
+        "cmis:none", true, null);
+
+    List<String> paths = new ArrayList<>();
+    for (ObjectParentData parent : parents) {
+      PropertyData<?> parentPath = parent.getObject().getProperties().getProperties().get(PropertyIds.PATH);
+      if (parentPath != null && parent.getRelativePathSegment() != null) {
+        String folderPath = (String) parentPath.getFirstValue();
+        paths.add((folderPath.endsWith("/") ? folderPath : folderPath + "/") + parent.getRelativePathSegment());
+      }
+    }
 
-    OperationContext oc = ctrl.getSession().createOperationContext();
-    oc.setOrderBy("cmis:name ASC");
-    oc.setIncludeAllowableActions(true);
-    oc.setIncludeRelationships(IncludeRelationships.BOTH);
-    oc.setIncludePolicies(true);
+    return paths;
+  }
 
-    // Get the personal checked out documents
-    ItemIterable<Document> personalResults = ctrl.getSession().getCheckedOutDocs(oc);
-    // Check what kind of results we've got.
-    for (CmisObject cmisObject : personalResults) {
+  /**
+   * Sends the results to the handler, one page at a time. The next page is
+   * requested from the server only if the handler didn't cancel the search.
+   * 
+   * @param results
+   *          The query results.
+   * @param skipPWCs
+   *          <code>true</code> to leave out the private working copies.
+   * @param handler
+   *          Receives the results.
+   */
+  private static void deliverResults(ItemIterable<CmisObject> results, boolean skipPWCs,
+      SearchResultsHandler handler) {
+    List<IResource> page = new ArrayList<>();
+    Iterator<CmisObject> iterator = results.iterator();
+    while (!handler.isCanceled() && iterator.hasNext()) {
+      CmisObject cmisObject = iterator.next();
       IResource res = null;
 
       if (cmisObject instanceof Document) {
         res = new DocumentImpl((Document) cmisObject);
-
+        if (skipPWCs && res.isCheckedOut() && ((DocumentImpl) res).isPrivateWorkingCopy()) {
+          res = null;
+        }
       } else if (cmisObject instanceof Folder) {
         res = new FolderImpl((Folder) cmisObject);
       }
 
       if (res != null) {
-        // Get the original versions
-        Document lastCheckoutVersion = ((DocumentImpl) res).getLastCheckoutVersion();
-        personalDocuments.add(new DocumentImpl(lastCheckoutVersion));
+        page.add(res);
+        if (page.size() == RESULTS_PAGE_SIZE) {
+          handler.resultsFound(page);
+          page = new ArrayList<>();
+        }
       }
     }
 
-    // Store the ids of the personal docs
-    for (DocumentImpl document : personalDocuments) {
-      idResources.add(document.getId());
+    if (!page.isEmpty() && !handler.isCanceled()) {
+      handler.resultsFound(page);
     }
+  }
 
-    // Get all the results with given seach keys
-    generalResults.addAll(queryDoc(toSearch));
-
-    // Eliminate those that are not personal
-    Iterator<IResource> resultsIterator = generalResults.iterator();
-    while (resultsIterator.hasNext()) {
-      DocumentImpl doc = (DocumentImpl) resultsIterator.next();
-
-      String docId = doc.getId();
-
-      if (!idResources.contains(docId)) {
-        resultsIterator.remove();
+  /**
+   * Finds the checked-out documents that match the search keys. The check-out
+   * state is part of the query, so the repository does the filtering.
+   * Repositories that can't query it are served by joining the results with the
+   * check-outs of the user.
+   * 
+   * @param toSearch
+   *          The search keys.
+   * @param personal
+   *          <code>true</code> for the documents checked-out by the current
+   *          user, <code>false</code> for those checked-out by others.
+   * @param handler
+   *          Receives the results page by page.
+   */
+  private void queryCheckedoutDocs(String toSearch, boolean personal, SearchResultsHandler handler) {
+    String user = ctrl.getSession().getSessionParameters().get(SessionParameter.USER);
+    if (user != null && !user.isEmpty()) {
+      String checkedOutCondition = PropertyIds.IS_VERSION_SERIES_CHECKED_OUT + " = true AND "
+          + PropertyIds.VERSION_SERIES_CHECKED_OUT_BY + (personal ? " = " : " <> ") + quote(user);
+      try {
+        queryResource(toSearch, SEARCH_IN_DOCUMENT, checkedOutCondition, handler);
+        return;
+      } catch (CmisInvalidArgumentException | CmisNotSupportedException e) {
+        logger.debug("The check-out properties are not queryable: " + e.getMessage());
       }
     }
 
-    return generalResults;
-
+    // The version series the user checked out. A PWC belongs to the same
+    // series as the document it was checked out from.
+    OperationContext oc = ctrl.getSession().createOperationContext();
+    oc.setFilterString(PropertyIds.VERSION_SERIES_ID);
+    oc.setIncludeAllowableActions(false);
+    oc.setIncludeRelationships(IncludeRelationships.NONE);
+    oc.setIncludePolicies(false);
+    oc.setMaxItemsPerPage(RESULTS_PAGE_SIZE);
+
+    // Read while the search runs, needed only when the first page arrives.
+    FutureTask<Set<String>> personalSeries = new FutureTask<>(() -> {
+      Set<String> series = new HashSet<>();
+      for (Document pwc : ctrl.getSession().getCheckedOutDocs(oc)) {
+        series.add(pwc.getVersionSeriesId());
+      }
+      return series;
+    });
+    executor.execute(personalSeries);
+
+    try {
+      queryResource(toSearch, SEARCH_IN_DOCUMENT, null, new FilteringHandler(handler, resource -> {
+        boolean mine = await(personalSeries).contains(((DocumentImpl) resource).getDoc().getVersionSeriesId());
+        return personal ? mine : resource.isCheckedOut() && !mine;
+      }));
+    } finally {
+      personalSeries.cancel(true);
+    }
   }
 
   /**
-   * Find all the foreign resources by getting the personal documents and then
-   * eliminate the other documents from all resources with given search keys.
+   * Runs some queries at the same time. The results are sent to the handler as
+   * they arrive, each resource only once. If a query fails or the calling
+   * thread is interrupted, the other queries stop at the next page.
    * 
-   * @param content
-   * @return
+   * @param queries
+   *          The queries, each sending its results to the given handler.
+   * @param handler
+   *          Receives the results page by page. It is canceled for all the
+   *          queries at once.
    */
-  public List<IResource> queryForeignCheckedoutDocs(String toSearch) {
-    List<IResource> personalCheckedoutDocs = new ArrayList<>();
-    List<IResource> allResources = new ArrayList<>();
-    List<String> idResources = new ArrayList<>();
-
-    // Get all personal documents
-    personalCheckedoutDocs.addAll(queryPersonalCheckedout(toSearch));
-    // Store the ids
-    for (IResource resource : personalCheckedoutDocs) {
-
-      if (resource instanceof DocumentImpl) {
-        String docId = ((DocumentImpl) resource).getId();
-        idResources.add(docId);
-
+  public static void queryConcurrently(List<Consumer<SearchResultsHandler>> queries, SearchResultsHandler handler) {
+    MergingHandler merged = new MergingHandler(handler);
+
+    List<FutureTask<Void>> tasks = new ArrayList<>();
+    for (Consumer<SearchResultsHandler> query : queries) {
+      FutureTask<Void> task = new FutureTask<>(() -> query.accept(merged), null);
+      tasks.add(task);
+      if (tasks.size() > 1) {
+        executor.execute(task);
       }
     }
 
-    // Get all the resources with given search keys
-    allResources.addAll(queryDoc(toSearch));
-    // Remove non checkout docs
-    removeNonCheckoutDocuments(allResources);
-
-    Iterator<IResource> allResourcesIterator = allResources.iterator();
-    // Eliminate all personal documents
-    while (allResourcesIterator.hasNext()) {
-
-      IResource resource = allResourcesIterator.next();
-
-      if (idResources.contains(resource.getId())) {
-        allResourcesIterator.remove();
+    try {
+      // The first query runs on this thread.
+      for (FutureTask<Void> task : tasks) {
+        await(task);
+      }
+    } catch (RuntimeException e) {
+      merged.cancel();
+      throw e;
+    } finally {
+      for (FutureTask<Void> task : tasks) {
+        task.cancel(true);
       }
     }
-
-    return allResources;
-
   }
 
   /**
-   * Removes the non checkout documents
+   * Waits for a task. A task still waiting for a thread is run on this one, so
+   * that tasks waiting for other tasks can't fill the executor and block it.
    * 
-   * @param resources
-   * @return
+   * @param task
+   *          The task.
+   * 
+   * @return The result of the task.
    */
-  private List<IResource> removeNonCheckoutDocuments(List<IResource> resources) {
-    Iterator<IResource> resIterator = resources.iterator();
+  private static <T> T await(FutureTask<T> task) {
+    task.run();
+    try {
+      return task.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new CmisRuntimeException("Search interrupted", e);
+    } catch (CancellationException e) {
+      throw new CmisRuntimeException("Search canceled", e);
+    } catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      }
+      throw new CmisRuntimeException(cause.getMessage(), cause);
+    }
+  }
 
-    while (resIterator.hasNext()) {
+  /**
+   * Finds the documents in a folder tree by their check-out state, with one
+   * paged IN_TREE query. The private working copies are left out.
+   * 
+   * @param folderId
+   *          The ID of the folder.
+   * @param checkedOut
+   *          <code>true</code> for the documents checked-out by the current
+   *          user, <code>false</code> for those not checked-out.
+   * @param handler
+   *          Receives the results page by page.
+   * 
+   * @throws CmisInvalidArgumentException
+   *           If the repository can't query the check-out state.
+   * @throws CmisNotSupportedException
+   *           If the repository can't query folder trees.
+   */
+  public void queryDocumentsInTree(String folderId, boolean checkedOut, SearchResultsHandler handler) {
+    deliverResults(documentsInTree(folderId, checkedOut, RESULTS_PAGE_SIZE), true, handler);
+  }
 
-      IResource resource = resIterator.next();
-      if (!resource.isCheckedOut()) {
-        resIterator.remove();
+  /**
+   * Checks if a folder tree has a document with the given check-out state that
+   * is accepted by a filter. Stops at the first such document.
+   * 
+   * @param folderId
+   *          The ID of the folder.
+   * @param checkedOut
+   *          <code>true</code> for the documents checked-out by the current
+   *          user, <code>false</code> for those not checked-out.
+   * @param accepted
+   *          Filters the documents.
+   * 
+   * @return <code>true</code> if there is such a document.
+   * 
+   * @throws CmisInvalidArgumentException
+   *           If the repository can't query the check-out state.
+   * @throws CmisNotSupportedException
+   *           If the repository can't query folder trees.
+   */
+  public boolean hasDocumentInTree(String folderId, boolean checkedOut, Predicate<DocumentImpl> accepted) {
+    // Pages are requested only until a document is accepted.
+    for (CmisObject cmisObject : documentsInTree(folderId, checkedOut, ENABLEMENT_PAGE_SIZE)) {
+      if (cmisObject instanceof Document) {
+        DocumentImpl doc = new DocumentImpl((Document) cmisObject);
+        if (!doc.isPrivateWorkingCopy() && accepted.test(doc)) {
+          return true;
+        }
       }
     }
-    return resources;
 
+    return false;
   }
 
   /**
-   * Removes the blocked documents from search
+   * Queries the documents in a folder tree by their check-out state. Only the
+   * properties that tell the check-out state are fetched.
    * 
-   * @param resources
-   * @return
+   * @param folderId
+   *          The ID of the folder.
+   * @param checkedOut
+   *          <code>true</code> for the documents checked-out by the current
+   *          user, <code>false</code> for those not checked-out.
+   * @param pageSize
+   *          Number of documents requested at once.
+   * 
+   * @return The documents.
    */
-  private ArrayList<IResource> removePWCDocsFromSearch(ArrayList<IResource> resources) {
-    Iterator<IResource> resIterator = resources.iterator();
+  private ItemIterable<CmisObject> documentsInTree(String folderId, boolean checkedOut, int pageSize) {
+    StringBuilder where = new StringBuilder("IN_TREE(").append(quote(folderId)).append(") AND ")
+        .append(PropertyIds.IS_VERSION_SERIES_CHECKED_OUT).append(" = ").append(checkedOut);
+    String user = ctrl.getSession().getSessionParameters().get(SessionParameter.USER);
+    if (checkedOut && user != null && !user.isEmpty()) {
+      where.append(" AND ").append(PropertyIds.VERSION_SERIES_CHECKED_OUT_BY).append(" = ").append(quote(user));
+    }
 
-    while (resIterator.hasNext()) {
+    OperationContextImpl oc = new OperationContextImpl();
+    oc.setFilterString(String.join(",", PropertyIds.OBJECT_ID, PropertyIds.OBJECT_TYPE_ID, PropertyIds.BASE_TYPE_ID,
+        PropertyIds.NAME, PropertyIds.CHANGE_TOKEN, PropertyIds.VERSION_SERIES_ID,
+        PropertyIds.IS_VERSION_SERIES_CHECKED_OUT, PropertyIds.VERSION_SERIES_CHECKED_OUT_ID,
+        PropertyIds.VERSION_SERIES_CHECKED_OUT_BY, PropertyIds.IS_PRIVATE_WORKING_COPY));
+    oc.setIncludeAllowableActions(true);
+    oc.setIncludeRelationships(IncludeRelationships.NONE);
+    oc.setIncludePolicies(false);
+    oc.setRenditionFilterString("cmis:none");
+    oc.setMaxItemsPerPage(pageSize);
 
-      IResource resource = resIterator.next();
-      if (resource.isCheckedOut() && ((DocumentImpl) resource).isPrivateWorkingCopy()) {
-        resIterator.remove();
-      }
-    }
-    return resources;
+    return ctrl.getSession().queryObjects(DOCUMENT_TYPE, where.toString(), false, oc);
+  }
 
+  /**
+   * @param value
+   *          A value.
+   * 
+   * @return The value as a string literal for the query.
+   */
+  private static String quote(String value) {
+    return "'" + value.replace("\\", "\\\\").replace("'", "\\'") + "'";
   }
 
   /**
    * Find all the resources and order by name ascending depending on what to
-   * search (ALL KEYS) a cmis:document or folder.
+   * search (ALL KEYS) a cmis:document or folder. The private working copies are
+   * left out.
    * 
-   * @param content
+   * @param toSearch
    * @param searchObjectTypes
-   * @return
+   * @param condition
+   *          Another condition the results must meet or <code>null</code>.
+   * @param handler
+   *          Receives the results page by page.
    */
-  private List<IResource> queryResource(String toSearch, int searchObjectTypes) {
-    ArrayList<IResource> resources = new ArrayList<>();
+  private void queryResource(String toSearch, int searchObjectTypes, String condition,
+      SearchResultsHandler handler) {
     String[] searchKeys = toSearch.split("\\s+");
     String scope = "";
 
-    OperationContext oc = ctrl.getSession().createOperationContext();
-    oc.setOrderBy("cmis:name ASC");
-    oc.setIncludeAllowableActions(true);
-    oc.setIncludeRelationships(IncludeRelationships.BOTH);
-    oc.setIncludePolicies(true);
-
     // Binary trick
     if ((searchObjectTypes & SEARCH_IN_DOCUMENT) != 0) {
       scope = DOCUMENT_TYPE;
@@ -285,28 +590,21 @@ public class SearchController {
 
     StringBuilder strBuild = constructWhereStatement(searchKeys);
 
+    if (condition != null) {
+      strBuild.append(" AND ").append(condition);
+    }
+
     String where = strBuild.toString();
 
     logger.debug("Where statement : " + where);
 
+    OperationContext oc = createResultsContext(scope);
+    oc.setOrderBy("cmis:name ASC");
+
     // The results after the search.
     ItemIterable<CmisObject> results = ctrl.getSession().queryObjects(scope, where, false, oc);
 
-    // Check what kind of results we've got.
-    for (CmisObject cmisObject : results) {
-      IResource res = null;
-
-      if (cmisObject instanceof Document) {
-        res = new DocumentImpl((Document) cmisObject);
-
-      } else if (cmisObject instanceof Folder) {
-        res = new FolderImpl((Folder) cmisObject);
-      }
-
-      resources.add(res);
-    }
-    return removePWCDocsFromSearch(resources);
-
+    deliverResults(results, true, handler);
   }
 
   /**
@@ -374,7 +672,20 @@ public class SearchController {
    * @return
    */
   public List<IResource> queryDocName(String content) {
-    return queryResourceName(content, SEARCH_IN_DOCUMENT);
+    ResultsCollector collector = new ResultsCollector();
+    queryResourceName(content, SEARCH_IN_DOCUMENT, collector);
+    return collector.getResults();
+  }
+
+  /**
+   * Searches the name in the documents, streaming the results.
+   * 
+   * @param content
+   * @param handler
+   *          Receives the results page by page.
+   */
+  public void queryDocName(String content, SearchResultsHandler handler) {
+    queryResourceName(content, SEARCH_IN_DOCUMENT, handler);
   }
 
   /**
@@ -384,7 +695,20 @@ public class SearchController {
    * @return
    */
   public List<IResource> queryFolderName(String content) {
-    return queryResourceName(content, SEARCH_IN_FOLDER);
+    ResultsCollector collector = new ResultsCollector();
+    queryResourceName(content, SEARCH_IN_FOLDER, collector);
+    return collector.getResults();
+  }
+
+  /**
+   * Searches the name in the folders, streaming the results.
+   * 
+   * @param content
+   * @param handler
+   *          Receives the results page by page.
+   */
+  public void queryFolderName(String content, SearchResultsHandler handler) {
+    queryResourceName(content, SEARCH_IN_FOLDER, handler);
   }
 
   /**
@@ -394,11 +718,68 @@ public class SearchController {
    * @return
    */
   public List<IResource> queryDoc(String content) {
-    return queryResource(content, SEARCH_IN_DOCUMENT);
+    ResultsCollector collector = new ResultsCollector();
+    queryResource(content, SEARCH_IN_DOCUMENT, null, collector);
+    return collector.getResults();
   }
 
+  /**
+   * Searches the documents, streaming the results.
+   * 
+   * @param content
+   * @param handler
+   *          Receives the results page by page.
+   */
+  public void queryDoc(String content, SearchResultsHandler handler) {
+    queryResource(content, SEARCH_IN_DOCUMENT, null, handler);
+  }
+
+  /**
+   * Get the documents checked-out by the current user that match the search
+   * keys.
+   * 
+   * @param content
+   * @return
+   */
   public List<IResource> queryPersonalCheckedout(String content) {
-    return queryPersonalCheckedoutDocs(content, SEARCH_IN_DOCUMENT);
+    ResultsCollector collector = new ResultsCollector();
+    queryCheckedoutDocs(content, true, collector);
+    return collector.getResults();
+  }
+
+  /**
+   * Searches the documents checked-out by the current user, streaming the
+   * results.
+   * 
+   * @param content
+   * @param handler
+   *          Receives the results page by page.
+   */
+  public void queryPersonalCheckedout(String content, SearchResultsHandler handler) {
+    queryCheckedoutDocs(content, true, handler);
+  }
+
+  /**
+   * Get the documents checked-out by other users that match the search keys.
+   * 
+   * @param toSearch
+   * @return
+   */
+  public List<IResource> queryForeignCheckedoutDocs(String toSearch) {
+    ResultsCollector collector = new ResultsCollector();
+    queryCheckedoutDocs(toSearch, false, collector);
+    return collector.getResults();
+  }
+
+  /**
+   * Searches the documents checked-out by other users, streaming the results.
+   * 
+   * @param toSearch
+   * @param handler
+   *          Receives the results page by page.
+   */
+  public void queryForeignCheckedoutDocs(String toSearch, SearchResultsHandler handler) {
+    queryCheckedoutDocs(toSearch, false, handler);
   }
 
   /**
@@ -408,7 +789,20 @@ public class SearchController {
    * @return
    */
   public List<IResource> queryFolder(String content) {
-    return queryResource(content, SEARCH_IN_FOLDER);
+    ResultsCollector collector = new ResultsCollector();
+    queryResource(content, SEARCH_IN_FOLDER, null, collector);
+    return collector.getResults();
+  }
+
+  /**
+   * Searches the folders, streaming the results.
+   * 
+   * @param content
+   * @param handler
+   *          Receives the results page by page.
+   */
+  public void queryFolder(String content, SearchResultsHandler handler) {
+    queryResource(content, SEARCH_IN_FOLDER, null, handler);
   }
 
   /**
@@ -448,48 +842,74 @@ public class SearchController {
     // Check if it's a document
     if (resource instanceof DocumentImpl) {
 
-      IDocument iDocument = (IDocument) resource;
-
-      try {
-        // Use a reader for the content
-        Reader documentContent = ctrl.getDocumentContent(iDocument.getId());
-
-        // If there is something
-        if (documentContent != null) {
-          return scanLines(searchKeys, STRING_LIMIT, documentContent);
+      Document document = ((DocumentImpl) resource).getDoc();
+      String key = snippetKey(document, content);
+
+      Optional<String> snippet = snippets.get(key);
+      if (snippet == null) {
+        // No range is requested past the end, the server would reject it.
+        long contentLength = document.getContentStreamLength();
+        long maxBytes = contentLength >= 0 ? Math.min(contentLength, SNIPPET_MAX_BYTES) : SNIPPET_MAX_BYTES;
+        // Read only the beginning of the document, one range at a time.
+        try (Reader documentContent = ContentReader.open(
+            new RangedContentInputStream(
+                (offset, length) -> openRange(document, offset, length), SNIPPET_CHUNK_SIZE, maxBytes),
+            document.getContentStreamMimeType())) {
+          snippet = Optional.ofNullable(scanLines(searchKeys, STRING_LIMIT, documentContent));
+          snippets.put(key, snippet);
+        } catch (Exception e) {
+          logger.debug("Exception", e);
+          snippet = Optional.empty();
         }
-      } catch (Exception e) {
-        logger.debug("Exception", e);
       }
 
+      return snippet.orElse(null);
     }
 
     return null;
   }
 
-  private String scanLines(String[] searchKeys, final int STRING_LIMIT, Reader documentContent) {
-    Scanner scanner;
-    scanner = new Scanner(documentContent);
-
-    // Iterate line by line
-    while (scanner.hasNextLine()) {
-      String line = scanner.nextLine().trim();
-
-      // Check for each key
-      for (String key : searchKeys) {
+  /**
+   * Requests a range of the content of a document.
+   * 
+   * @param document
+   *          The document.
+   * @param offset
+   *          The first byte.
+   * @param length
+   *          The number of bytes.
+   * 
+   * @return The content or <code>null</code> if the document has no content.
+   */
+  private InputStream openRange(Document document, long offset, long length) {
+    ContentStream contentStream = ctrl.getSession().getContentStream(document, null, BigInteger.valueOf(offset),
+        BigInteger.valueOf(length));
+    return contentStream != null ? contentStream.getStream() : null;
+  }
 
-        // If line contains the key
-        if (line.contains(key)) {
+  /**
+   * @param document
+   *          A document.
+   * @param content
+   *          The searched text.
+   * 
+   * @return The key of the line found in this version of the document.
+   */
+  private static String snippetKey(Document document, String content) {
+    String version = document.getChangeToken();
+    if (version == null) {
+      GregorianCalendar modified = document.getLastModificationDate();
+      version = modified != null ? String.valueOf(modified.getTimeInMillis()) : "";
+    }
 
-          logger.debug("Content found=" + line);
-          scanner.close();
-          return limitStringResult(line, key, STRING_LIMIT);
-        }
-      }
+    return document.getId() + '\n' + version + '\n' + content.trim();
+  }
 
-    }
-    scanner.close();
-    return null;
+  private String scanLines(String[] searchKeys, final int STRING_LIMIT, Reader documentContent) throws IOException {
+    // All the keys are looked for in one pass over the content.
+    String found = new KeywordMatcher(searchKeys).findContext(documentContent, STRING_LIMIT);
+    logger.debug("Content found=" + found);
+    return found;
   }
 
   /**
@@ -502,41 +922,111 @@ public class SearchController {
    * @return string the limited string
    */
   public String limitStringResult(String input, String pattern, int stringLimit) {
-    String limitedString = input.trim();
-    int frontCounter = 1;
-    int backCounter = input.length() - 1;
+    String limitedString = new KeywordMatcher(pattern).findContext(input, stringLimit);
+    if (limitedString == null) {
+      // No pattern to keep.
+      limitedString = input.trim();
+      if (limitedString.length() > stringLimit) {
+        limitedString = limitedString.substring(0, stringLimit);
+      }
+    }
+
+    return limitedString;
+  }
 
-    // While the input is larger than limit
-    while (limitedString.length() > stringLimit) {
+  /**
+   * Collects all the results of a search.
+   */
+  private static class ResultsCollector implements SearchResultsHandler {
+    private final List<IResource> results = new ArrayList<>();
+
+    @Override
+    public void resultsFound(List<IResource> resources) {
+      results.addAll(resources);
+    }
 
-      // Not reached the front of the input
-      if (frontCounter != limitedString.indexOf(pattern)) {
+    @Override
+    public boolean isCanceled() {
+      return false;
+    }
+
+    List<IResource> getResults() {
+      return results;
+    }
+  }
+
+  /**
+   * Merges the results of concurrent queries. A resource found by more than
+   * one query is delivered once.
+   */
+  private static class MergingHandler implements SearchResultsHandler {
+    private final SearchResultsHandler delegate;
+    /**
+     * The IDs of the delivered resources.
+     */
+    private final Set<String> delivered = new HashSet<>();
+    private volatile boolean canceled;
+
+    MergingHandler(SearchResultsHandler delegate) {
+      this.delegate = delegate;
+    }
 
-        limitedString = limitedString.substring(frontCounter);
-        // After Front cut
+    /**
+     * Stops all the queries.
+     */
+    void cancel() {
+      canceled = true;
+    }
 
-        backCounter--;
+    @Override
+    public synchronized void resultsFound(List<IResource> resources) {
+      List<IResource> added = new ArrayList<>();
+      for (IResource resource : resources) {
+        if (delivered.add(resource.getId())) {
+          added.add(resource);
+        }
       }
 
-      if (limitedString.length() <= stringLimit) {
-        return limitedString;
+      if (!added.isEmpty() && !isCanceled()) {
+        delegate.resultsFound(added);
       }
+    }
 
-      // Not reached the back of input
-      if (backCounter != limitedString.indexOf(pattern) + pattern.length() - 1) {
+    @Override
+    public boolean isCanceled() {
+      return canceled || delegate.isCanceled();
+    }
+  }
 
-        limitedString = limitedString.substring(0, backCounter);
-        // Back cut
-        backCounter--;
+  /**
+   * Passes on only the results accepted by a filter.
+   */
+  private static class FilteringHandler implements SearchResultsHandler {
+    private final SearchResultsHandler delegate;
+    private final Predicate<IResource> filter;
 
-      }
+    FilteringHandler(SearchResultsHandler delegate, Predicate<IResource> filter) {
+      this.delegate = delegate;
+      this.filter = filter;
+    }
 
-      if (limitedString.length() <= stringLimit) {
-        return limitedString;
+    @Override
+    public void resultsFound(List<IResource> resources) {
+      List<IResource> accepted = new ArrayList<>();
+      for (IResource resource : resources) {
+        if (filter.test(resource)) {
+          accepted.add(resource);
+        }
       }
 
+      if (!accepted.isEmpty()) {
+        delegate.resultsFound(accepted);
+      }
     }
 
-    return limitedString;
+    @Override
+    public boolean isCanceled() {
+      return delegate.isCanceled();
+    }
   }
 }
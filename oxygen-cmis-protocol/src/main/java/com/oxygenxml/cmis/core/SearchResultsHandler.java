@@ -0,0 +1,26 @@
+package com.oxygenxml.cmis.core;
+
+import java.util.List;
+
+import com.oxygenxml.cmis.core.model.IResource;
+
+/**
+ * Receives the results of a search page by page, as they arrive from the
+ * server.
+ */
+public interface SearchResultsHandler {
+  /**
+   * Called for each page of results.
+   *
+   * @param resources
+   *          The resources found in the page.
+   */
+  void resultsFound(List<IResource> resources);
+
+  /**
+   * Checked before each page is requested from the server.
+   *
+   * @return <code>true</code> to stop the search.
+   */
+  boolean isCanceled();
+}
@@ -0,0 +1,169 @@
+package com.oxygenxml.cmis.core;
+
+import java.util.Map;
+import java.util.Objects;
+
+import org.apache.chemistry.opencmis.client.api.Session;
+import org.apache.chemistry.opencmis.client.api.SessionFactory;
+import org.apache.chemistry.opencmis.commons.SessionParameter;
+import org.apache.chemistry.opencmis.commons.exceptions.CmisUnauthorizedException;
+
+import com.oxygenxml.cmis.core.cache.ExpiringCache;
+
+/**
+ * A bounded pool of live sessions, keyed by server URL, repository and user.
+ *
+ * Creating a session costs a repository-info round trip and starts with an
+ * empty object cache. OpenCMIS sessions are thread-safe so they can be reused
+ * by any number of connections.
+ *
+ * For the same parameters the pool also keeps a background session, used by
+ * the threads that fetch details, so that they don't compete with the user
+ * actions for the connections and the cache of the main session.
+ */
+public class SessionPool {
+
+  /**
+   * Number of locks that serialize the creation of sessions.
+   */
+  private static final int LOCK_STRIPES = 16;
+
+  /**
+   * The live sessions.
+   */
+  private final ExpiringCache<SessionKey, Session> sessions;
+
+  /**
+   * A session is looked up and created while holding the lock picked by the
+   * hash of its key, so that concurrent connects with the same parameters
+   * create it only once. Connects with other parameters are not blocked by
+   * the cache lock during the handshake.
+   */
+  private final Object[] locks = new Object[LOCK_STRIPES];
+
+  /**
+   * Constructor.
+   *
+   * @param maxSessions
+   *          Maximum number of sessions kept alive.
+   * @param idleTimeout
+   *          A session not used for this long (milliseconds) is dropped.
+   */
+  public SessionPool(int maxSessions, long idleTimeout) {
+    sessions = ExpiringCache.expireAfterAccess(maxSessions, idleTimeout);
+    for (int i = 0; i < locks.length; i++) {
+      locks[i] = new Object();
+    }
+  }
+
+  /**
+   * Gets a live session for the given parameters. A new session is created and
+   * pooled only when there is none. Concurrent calls with the same parameters
+   * wait for the first one and get the same session.
+   *
+   * @param factory
+   *          Factory used to create a missing session.
+   * @param parameters
+   *          Session parameters.
+   *
+   * @return The session.
+   *
+   * @exception CmisUnauthorizedException
+   *              Bad credentials.
+   */
+  public Session getSession(SessionFactory factory, Map<String, String> parameters) throws CmisUnauthorizedException {
+    return getSession(factory, parameters, new SessionKey(parameters, false));
+  }
+
+  /**
+   * Gets the background session for the given parameters, created only when
+   * there is none, like {@link #getSession(SessionFactory, Map)}.
+   *
+   * @param factory
+   *          Factory used to create a missing session.
+   * @param parameters
+   *          Session parameters.
+   *
+   * @return The background session.
+   *
+   * @exception CmisUnauthorizedException
+   *              Bad credentials.
+   */
+  public Session getBackgroundSession(SessionFactory factory, Map<String, String> parameters)
+      throws CmisUnauthorizedException {
+    return getSession(factory, parameters, new SessionKey(parameters, true));
+  }
+
+  private Session getSession(SessionFactory factory, Map<String, String> parameters, SessionKey key) {
+    Session session = sessions.get(key);
+    if (session == null) {
+      synchronized (locks[Math.floorMod(key.hashCode(), locks.length)]) {
+        session = sessions.get(key);
+        if (session == null) {
+          session = factory.createSession(parameters);
+          sessions.put(key, session);
+        }
+      }
+    }
+    return session;
+  }
+
+  /**
+   * Drops the sessions created for the given parameters, the background one
+   * included.
+   *
+   * @param parameters
+   *          Session parameters.
+   */
+  public void invalidate(Map<String, String> parameters) {
+    sessions.remove(new SessionKey(parameters, false));
+    sessions.remove(new SessionKey(parameters, true));
+  }
+
+  /**
+   * Drops all the sessions.
+   */
+  public void clear() {
+    sessions.clear();
+  }
+
+  /**
+   * Identifies a pooled session: the server URL, the repository, the user and
+   * whether it is the background session.
+   */
+  private static class SessionKey {
+    private final String serverUrl;
+    private final String repositoryId;
+    private final String user;
+    private final String password;
+    private final boolean background;
+
+    SessionKey(Map<String, String> parameters, boolean background) {
+      this.serverUrl = parameters.get(SessionParameter.ATOMPUB_URL);
+      this.repositoryId = parameters.get(SessionParameter.REPOSITORY_ID);
+      this.user = parameters.get(SessionParameter.USER);
+      // A session authenticated with other credentials must not be reused.
+      this.password = parameters.get(SessionParameter.PASSWORD);
+      this.background = background;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      if (this == obj) {
+        return true;
+      }
+      if (!(obj instanceof SessionKey)) {
+        return false;
+      }
+      SessionKey other = (SessionKey) obj;
+      return Objects.equals(serverUrl, other.serverUrl) && Objects.equals(repositoryId, other.repositoryId)
+          && Objects.equals(user, other.user) && Objects.equals(password, other.password)
+          && background == other.background;
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(serverUrl, repositoryId, user, password, background);
+    }
+  }
+}
@@ -0,0 +1,200 @@
+package com.oxygenxml.cmis.core.cache;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Predicate;
+
+/**
+ * A small, thread-safe cache bounded both in size and in time. When the maximum
+ * size is reached the least recently used entry is evicted. Entries also expire
+ * after a given amount of time, measured either from the moment they were
+ * written or from the moment they were last read.
+ *
+ * @param <K>
+ *          Key type.
+ * @param <V>
+ *          Value type.
+ */
+public class ExpiringCache<K, V> {
+
+  /**
+   * A cached value together with its time stamp.
+   */
+  private static class Entry<V> {
+    private final V value;
+    private long timestamp;
+
+    Entry(V value, long timestamp) {
+      this.value = value;
+      this.timestamp = timestamp;
+    }
+  }
+
+  /**
+   * The cached entries, kept in access order so that the eldest one is the
+   * least recently used.
+   */
+  private final LinkedHashMap<K, Entry<V>> entries;
+
+  /**
+   * How long an entry lives, in milliseconds.
+   */
+  private final long expireAfterMillis;
+
+  /**
+   * <code>true</code> if reading an entry extends its life.
+   */
+  private final boolean refreshOnAccess;
+
+  /**
+   * Constructor.
+   *
+   * @param maxSize
+   *          Maximum number of entries.
+   * @param expireAfterMillis
+   *          How long an entry lives, in milliseconds.
+   * @param refreshOnAccess
+   *          <code>true</code> to measure the life of an entry from its last
+   *          access, <code>false</code> to measure it from its creation.
+   */
+  protected ExpiringCache(final int maxSize, long expireAfterMillis, boolean refreshOnAccess) {
+    this.expireAfterMillis = expireAfterMillis;
+    this.refreshOnAccess = refreshOnAccess;
+    this.entries = new LinkedHashMap<K, Entry<V>>(16, 0.75f, true) {
+      private static final long serialVersionUID = 1L;
+
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<K, Entry<V>> eldest) {
+        return size() > maxSize;
+      }
+    };
+  }
+
+  /**
+   * Creates a cache whose entries expire when they are not used for the given
+   * amount of time.
+   *
+   * @param maxSize
+   *          Maximum number of entries.
+   * @param idleMillis
+   *          Idle time after which an entry is evicted.
+   *
+   * @return The new cache.
+   */
+  public static <K, V> ExpiringCache<K, V> expireAfterAccess(int maxSize, long idleMillis) {
+    return new ExpiringCache<>(maxSize, idleMillis, true);
+  }
+
+  /**
+   * Creates a cache whose entries expire after a fixed amount of time from the
+   * moment they were written.
+   *
+   * @param maxSize
+   *          Maximum number of entries.
+   * @param ttlMillis
+   *          Time to live for an entry.
+   *
+   * @return The new cache.
+   */
+  public static <K, V> ExpiringCache<K, V> expireAfterWrite(int maxSize, long ttlMillis) {
+    return new ExpiringCache<>(maxSize, ttlMillis, false);
+  }
+
+  /**
+   * @param key
+   *          The key.
+   *
+   * @return The cached value or <code>null</code> if there is no live entry for
+   *         the key.
+   */
+  public synchronized V get(K key) {
+    V value = null;
+    Entry<V> entry = entries.get(key);
+    if (entry != null) {
+      long now = now();
+      if (now - entry.timestamp > expireAfterMillis) {
+        entries.remove(key);
+      } else {
+        if (refreshOnAccess) {
+          entry.timestamp = now;
+        }
+        value = entry.value;
+      }
+    }
+    return value;
+  }
+
+  /**
+   * Caches a value.
+   *
+   * @param key
+   *          The key.
+   * @param value
+   *          The value to cache.
+   */
+  public synchronized void put(K key, V value) {
+    purgeExpired();
+    entries.put(key, new Entry<>(value, now()));
+  }
+
+  /**
+   * Removes an entry.
+   *
+   * @param key
+   *          The key.
+   *
+   * @return The removed value or <code>null</code>.
+   */
+  public synchronized V remove(K key) {
+    Entry<V> removed = entries.remove(key);
+    return removed != null ? removed.value : null;
+  }
+
+  /**
+   * Removes all the entries whose key matches the given filter.
+   *
+   * @param filter
+   *          Key filter.
+   */
+  public synchronized void removeIf(Predicate<K> filter) {
+    entries.keySet().removeIf(filter);
+  }
+
+  /**
+   * Removes all the entries.
+   */
+  public synchronized void clear() {
+    entries.clear();
+  }
+
+  /**
+   * @return The number of entries, including the expired ones not yet purged.
+   */
+  public synchronized int size() {
+    return entries.size();
+  }
+
+  /**
+   * Removes the expired entries.
+   */
+  private void purgeExpired() {
+    long now = now();
+    Iterator<Entry<V>> iterator = entries.values().iterator();
+    while (iterator.hasNext()) {
+      if (now - iterator.next().timestamp > expireAfterMillis) {
+        iterator.remove();
+      } else if (refreshOnAccess) {
+        // Entries are in access order so the rest of them are newer.
+        break;
+      }
+    }
+  }
+
+  /**
+   * @return The current time, in milliseconds.
+   */
+  protected long now() {
+    return System.currentTimeMillis();
+  }
+}
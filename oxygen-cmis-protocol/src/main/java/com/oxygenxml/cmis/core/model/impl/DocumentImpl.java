@@ -18,6 +18,7 @@ import com.oxygenxml.cmis.core.CMISAccess;
 import com.oxygenxml.cmis.core.ResourceController;
 import com.oxygenxml.cmis.core.model.IDocument;
 import com.oxygenxml.cmis.core.model.IResource;
+import com.oxygenxml.cmis.core.urlhandler.ContentDigestCache;
 
 /**
  * CMIS document implementation.
@@ -175,7 +176,8 @@ public class DocumentImpl implements IDocument {
   }
 
   public long getSize() {
-    return doc.getContentStream().getLength();
+    // Read the property, asking for the content stream would download it.
+    return doc.getContentStreamLength();
   }
 
   public Date getTimeCreated() {
@@ -195,10 +197,21 @@ public class DocumentImpl implements IDocument {
    * TODO Make test with deep ierarchy!
    */
   public String getDocumentPath(ResourceController ctrl) {
+    return getDocumentPath(ctrl.getRootFolder().getName(), doc.getPaths());
+  }
+
+  /**
+   * @param rootName
+   *          The name of the root folder.
+   * @param docPath
+   *          The paths of the document in the repository.
+   * 
+   * @return The path of the document, as presented to the user.
+   */
+  public static String getDocumentPath(String rootName, List<String> docPath) {
     StringBuilder b = new StringBuilder();
-    List<String> docPath = doc.getPaths();
 
-    b.append("/").append(ctrl.getRootFolder().getName());
+    b.append("/").append(rootName);
 
     for (int i = 0; i < docPath.size(); i++) {
       if (docPath.isEmpty()) {
@@ -242,8 +255,11 @@ public class DocumentImpl implements IDocument {
   public boolean isCheckedOut() {
     // A property needed to be set on creation of the document in order to get
     // this property
-    logger.debug("Checked out=" + doc.getProperty("cmis:isVersionSeriesCheckedOut").getValuesAsString());
-    return doc.isVersionSeriesCheckedOut();
+    boolean checkedOut = Boolean.TRUE.equals(doc.isVersionSeriesCheckedOut());
+    if (logger.isDebugEnabled()) {
+      logger.debug("Checked out=" + checkedOut);
+    }
+    return checkedOut;
   }
 
   /*
@@ -255,8 +271,11 @@ public class DocumentImpl implements IDocument {
    */
   @Override
   public boolean isPrivateWorkingCopy() {
-    logger.debug("CPWC=" + doc.getProperty("cmis:isPrivateWorkingCopy").getValuesAsString());
-    return doc.isPrivateWorkingCopy();
+    boolean pwc = Boolean.TRUE.equals(doc.isPrivateWorkingCopy());
+    if (logger.isDebugEnabled()) {
+      logger.debug("CPWC=" + pwc);
+    }
+    return pwc;
   }
 
   /*
@@ -267,9 +286,8 @@ public class DocumentImpl implements IDocument {
    */
   @Override
   public Document checkOut(DocumentType docType) {
-    if (Boolean.TRUE.equals(docType.isVersionable())) {
-
-      ObjectId pwcId = doc.checkOut();
+    ObjectId pwcId = checkOutAndGetId(docType);
+    if (pwcId != null) {
       Document pwc = (Document) CMISAccess.getInstance().getSession().getObject(pwcId);
       logger.debug("PWC ID=" + pwcId);
       logger.debug("PWC name=" + pwc.getName());
@@ -279,6 +297,22 @@ public class DocumentImpl implements IDocument {
     return doc;
   }
 
+  /**
+   * Checks out the document without fetching its private working copy.
+   * 
+   * @param docType
+   *          The type of the document.
+   * 
+   * @return The ID of the private working copy or <code>null</code> if the
+   *         document is not versionable.
+   */
+  public ObjectId checkOutAndGetId(DocumentType docType) {
+    if (Boolean.TRUE.equals(docType.isVersionable())) {
+      return doc.checkOut();
+    }
+    return null;
+  }
+
   /*
    * @return
    * 
@@ -288,6 +322,7 @@ public class DocumentImpl implements IDocument {
    */
   @Override
   public void cancelCheckOut() throws org.apache.chemistry.opencmis.commons.exceptions.CmisBaseException {
+    ContentDigestCache.getInstance().invalidateDocument(doc);
     doc.cancelCheckOut();
   }
 
@@ -299,6 +334,7 @@ public class DocumentImpl implements IDocument {
    */
   @Override
   public ObjectId checkIn(boolean major, String message) {
+    ContentDigestCache.getInstance().invalidateDocument(doc);
     return doc.checkIn(major, null, doc.getContentStream(), message);
   }
 
@@ -308,6 +344,7 @@ public class DocumentImpl implements IDocument {
   }
 
   public CmisObject rename(String newName) {
+    ContentDigestCache.getInstance().invalidateDocument(doc);
     return doc.rename(newName);
   }
 }
\ No newline at end of file
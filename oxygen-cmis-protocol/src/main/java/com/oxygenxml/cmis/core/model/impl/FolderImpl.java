@@ -1,14 +1,21 @@
 package com.oxygenxml.cmis.core.model.impl;
 
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.Date;
 import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.Set;
 
 import org.apache.chemistry.opencmis.client.api.CmisObject;
 import org.apache.chemistry.opencmis.client.api.Document;
 import org.apache.chemistry.opencmis.client.api.Folder;
 import org.apache.chemistry.opencmis.client.api.ItemIterable;
+import org.apache.chemistry.opencmis.client.api.OperationContext;
 import org.apache.chemistry.opencmis.client.api.QueryResult;
+import org.apache.chemistry.opencmis.client.runtime.OperationContextImpl;
+import org.apache.chemistry.opencmis.commons.PropertyIds;
+import org.apache.chemistry.opencmis.commons.enums.IncludeRelationships;
 import org.apache.log4j.Logger;
 
 import com.oxygenxml.cmis.core.ResourceController;
@@ -21,14 +28,95 @@ public class FolderImpl implements IFolder {
    * Logger for logging.
    */
   private static Logger logger = Logger.getLogger(FolderImpl.class.getName());
+
+  /**
+   * Default number of children fetched in one request.
+   */
+  public static final int DEFAULT_PAGE_SIZE = 100;
+
+  /**
+   * The properties needed to present a listed resource and to decide which
+   * actions are enabled on it. The allowable actions come separately.
+   */
+  private static final String[] LISTING_PROPERTIES = {
+      // getId(): the list model, the breadcrumb and every action.
+      PropertyIds.OBJECT_ID,
+      // ResourceIterator: tells the documents from the folders.
+      PropertyIds.BASE_TYPE_ID,
+      // DocumentImpl.getDocType() and isVersionable(): the check-out and open
+      // actions.
+      PropertyIds.OBJECT_TYPE_ID,
+      // getDisplayName(): DefaultListCellRendererExtension.
+      PropertyIds.NAME,
+      // Folder.getPaths(): ItemListView.getSelectedObjectUrl() and the folder
+      // that receives a paste.
+      PropertyIds.PATH,
+      // DocumentImpl.isCheckedOut(): the padlock icon of
+      // DefaultListCellRendererExtension, the check-in and cancel check-out
+      // actions.
+      PropertyIds.IS_VERSION_SERIES_CHECKED_OUT,
+      // DocumentImpl.getVersionSeriesCheckedOutId(): the check-in, cancel
+      // check-out and open actions find the private working copy.
+      PropertyIds.VERSION_SERIES_CHECKED_OUT_ID,
+      // CheckoutFolderAction: recognizes a retried check-out of the user.
+      PropertyIds.VERSION_SERIES_CHECKED_OUT_BY,
+      // DocumentImpl.isPrivateWorkingCopy(): ChildrenLoader hides the private
+      // working copies, the check-out and check-in actions skip them.
+      PropertyIds.IS_PRIVATE_WORKING_COPY };
+
   /**
    * Wrapped CMIS folder.
    */
   private Folder folder;
 
+  /**
+   * Number of children fetched in one request.
+   */
+  private final int pageSize;
+
   public FolderImpl(Folder folder) {
+    this(folder, DEFAULT_PAGE_SIZE);
+  }
+
+  /**
+   * Constructor.
+   * 
+   * @param folder
+   *          The wrapped CMIS folder.
+   * @param pageSize
+   *          Number of children fetched in one request.
+   */
+  public FolderImpl(Folder folder, int pageSize) {
     this.folder = folder;
+    this.pageSize = pageSize;
+  }
 
+  /**
+   * Creates the context used to list the children of a folder. Only the
+   * properties and allowable actions shown in the browser are fetched, one
+   * request per page, so the listed objects need no further round trips.
+   * 
+   * @param pageSize
+   *          Number of children fetched in one request.
+   * @param extraProperties
+   *          Other properties the caller reads from the children.
+   * 
+   * @return The operation context.
+   */
+  public static OperationContext createListingContext(int pageSize, String... extraProperties) {
+    Set<String> properties = new LinkedHashSet<>(Arrays.asList(LISTING_PROPERTIES));
+    properties.addAll(Arrays.asList(extraProperties));
+
+    OperationContextImpl context = new OperationContextImpl();
+    context.setFilterString(String.join(",", properties));
+    context.setIncludeAllowableActions(true);
+    context.setIncludeRelationships(IncludeRelationships.NONE);
+    context.setIncludePolicies(false);
+    context.setIncludeAcls(false);
+    context.setIncludePathSegments(false);
+    context.setRenditionFilterString("cmis:none");
+    context.setMaxItemsPerPage(pageSize);
+    return context;
   }
 
   public Folder getFolder() {
@@ -44,7 +132,7 @@ public class FolderImpl implements IFolder {
     private Iterator<CmisObject> children;
 
     public ResourceIterator(Folder folder) {
-      children = folder.getChildren().iterator();
+      children = folder.getChildren(createListingContext(pageSize)).iterator();
     }
 
     @Override
@@ -58,7 +146,7 @@ public class FolderImpl implements IFolder {
       if (next instanceof Document) {
         return new DocumentImpl((Document) next);
       } else if (next instanceof Folder) {
-        return new FolderImpl((Folder) next);
+        return new FolderImpl((Folder) next, pageSize);
       } else {
         logger.error("Unhandled type " + next.getClass());
         return new OtherResource(next);
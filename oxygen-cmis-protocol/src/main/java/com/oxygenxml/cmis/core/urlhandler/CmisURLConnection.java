@@ -1,7 +1,5 @@
 package com.oxygenxml.cmis.core.urlhandler;
 
-import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
@@ -10,6 +8,7 @@ import java.math.BigInteger;
 import java.net.MalformedURLException;
 import java.net.URL;
 import java.net.URLConnection;
+import java.security.MessageDigest;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -17,6 +16,9 @@ import org.apache.chemistry.opencmis.client.api.CmisObject;
 import org.apache.chemistry.opencmis.client.api.Document;
 import org.apache.chemistry.opencmis.client.api.FileableCmisObject;
 import org.apache.chemistry.opencmis.client.api.Folder;
+import org.apache.chemistry.opencmis.client.api.ObjectId;
+import org.apache.chemistry.opencmis.client.api.OperationContext;
+import org.apache.chemistry.opencmis.client.api.Session;
 import org.apache.chemistry.opencmis.commons.SessionParameter;
 import org.apache.chemistry.opencmis.commons.enums.VersioningState;
 import org.apache.chemistry.opencmis.commons.exceptions.CmisObjectNotFoundException;
@@ -28,6 +30,7 @@ import org.apache.log4j.Logger;
 import com.oxygenxml.cmis.core.CMISAccess;
 import com.oxygenxml.cmis.core.ResourceController;
 import com.oxygenxml.cmis.core.UserCredentials;
+import com.oxygenxml.cmis.core.urlhandler.URLResolutionCache.ResolvedURL;
 
 import ro.sync.basic.util.URLUtil;
 import ro.sync.ecss.extensions.api.webapp.plugin.UserActionRequiredException;
@@ -118,13 +121,8 @@ public class CmisURLConnection extends URLConnection {
 
     logger.info("Generate URL for: " + object.getName());
 
-    // Get and encode server URL
-    String originalProtocol = ctrl.getSession().getSessionParameters().get(SessionParameter.ATOMPUB_URL);
-    String repository = ctrl.getSession().getSessionParameters().get(SessionParameter.REPOSITORY_ID);
-    originalProtocol = URLUtil.encodeURIComponent(originalProtocol);
-
     // Generate first part of custom URL
-    urlb.append((CMIS_PROTOCOL + "://")).append(originalProtocol).append(SLASH_SYMBOL).append(repository);
+    urlb.append(generateRepositoryURL(ctrl));
 
     // Get and apend to URL path of Cmis Object
     List<String> objectPath = ((FileableCmisObject) object).getPaths();
@@ -139,6 +137,49 @@ public class CmisURLConnection extends URLConnection {
     return urlb.toString();
   }
 
+  /**
+   * Generates the URL of a child from the path of its folder. Unlike
+   * {@link #generateURLObject(CmisObject, ResourceController, String)}, the
+   * server is not asked for the paths of the child.
+   * 
+   * @param ctrl
+   *          Controller for the repository.
+   * @param folderPath
+   *          The path of the folder.
+   * @param childName
+   *          The name of the child.
+   * 
+   * @return The URL of the child.
+   */
+  public static String generateChildURL(ResourceController ctrl, String folderPath, String childName) {
+    StringBuilder urlb = new StringBuilder(generateRepositoryURL(ctrl));
+
+    for (String pth : folderPath.split(SLASH_SYMBOL)) {
+      if (!pth.isEmpty()) {
+        urlb.append(SLASH_SYMBOL).append(URLUtil.encodeURIComponent(pth));
+      }
+    }
+    urlb.append(SLASH_SYMBOL).append(URLUtil.encodeURIComponent(childName));
+
+    return urlb.toString();
+  }
+
+  /**
+   * @param ctrl
+   *          Controller for the repository.
+   * 
+   * @return The first part of the custom URLs, with the encoded server URL and
+   *         the repository ID.
+   */
+  private static String generateRepositoryURL(ResourceController ctrl) {
+    // Get and encode server URL
+    String originalProtocol = ctrl.getSession().getSessionParameters().get(SessionParameter.ATOMPUB_URL);
+    String repository = ctrl.getSession().getSessionParameters().get(SessionParameter.REPOSITORY_ID);
+    originalProtocol = URLUtil.encodeURIComponent(originalProtocol);
+
+    return CMIS_PROTOCOL + "://" + originalProtocol + SLASH_SYMBOL + repository;
+  }
+
   /**
    * Gets the CmisObject identified by the given URL.
    * 
@@ -173,7 +214,29 @@ public class CmisURLConnection extends URLConnection {
     // Get the object path
     String path = param.get(PATH_PARAM);
 
-    return resourceController.getSession().getObjectByPath(path);
+    try {
+      Session session = resourceController.getSession();
+      return session.getObjectByPath(path, createUncachedContext(session));
+    } catch (CmisUnauthorizedException e) {
+      // The pooled session is no longer accepted by the server.
+      cmisAccess.invalidateSession();
+      throw e;
+    }
+  }
+
+  /**
+   * The session is pooled and shared between connections, so its object cache
+   * may hold an older state of the document (checked-out state, latest version).
+   * 
+   * @param session
+   *          The session.
+   * 
+   * @return An operation context that always asks the server.
+   */
+  private static OperationContext createUncachedContext(Session session) {
+    OperationContext context = session.createOperationContext();
+    context.setCacheEnabled(false);
+    return context;
   }
 
   /**
@@ -186,6 +249,16 @@ public class CmisURLConnection extends URLConnection {
    * @throws UnsupportedEncodingException
    */
   public static URL getServerURL(String customURL, Map<String, String> param) throws MalformedURLException {
+    ResolvedURL resolved = URLResolutionCache.getInstance().get(customURL);
+    if (resolved != null) {
+      if (param != null) {
+        param.put(REPOSITORY_PARAM, resolved.getRepositoryId());
+        param.put(PATH_PARAM, resolved.getPath());
+      }
+      return resolved.getServerURL();
+    }
+
+    String originalURL = customURL;
     // Replace CMIS part
     if (customURL.startsWith(CmisURLConnection.CMIS_PROTOCOL)) {
       customURL = customURL.replaceFirst((CMIS_PROTOCOL + "://"), "");
@@ -211,8 +284,13 @@ public class CmisURLConnection extends URLConnection {
 
     URL url = new URL(originalProtocol + SLASH_SYMBOL);
 
-    return new URL(protocol, url.getHost(), url.getPort(),
+    URL serverURL = new URL(protocol, url.getHost(), url.getPort(),
         url.getPath().substring(0, url.getPath().lastIndexOf(SLASH_SYMBOL)));
+    if (param != null) {
+      URLResolutionCache.getInstance().put(originalURL,
+          new ResolvedURL(serverURL, param.get(REPOSITORY_PARAM), param.get(PATH_PARAM)));
+    }
+    return serverURL;
   }
 
   @Override
@@ -222,79 +300,144 @@ public class CmisURLConnection extends URLConnection {
 
   @Override
   public InputStream getInputStream() throws IOException {
-    Document document = (Document) getCMISObject(getURL().toExternalForm());
-    Document pwcDoc = null;
+    String documentUrl = getURL().toExternalForm();
+    Document source = getContentSource((Document) getCMISObject(documentUrl));
+    InputStream content = source.getContentStream().getStream();
+
+    // Remember what the editor starts from, to recognize a save without changes.
+    return ContentDigestCache.getInstance().recordWhileReading(source.getId(), source.getChangeToken(), content);
+  }
 
+  /**
+   * @param document
+   *          The document.
+   *
+   * @return The object whose content is edited: the private working copy of a
+   *         checked out document, the document itself otherwise.
+   */
+  private Document getContentSource(Document document) {
     if (document.isVersionSeriesCheckedOut()) {
       String pwcId = document.getVersionSeriesCheckedOutId();
-      pwcDoc = (Document) resourceController.getSession().getObject(pwcId);
-    } else {
-      return document.getContentStream().getStream();
+      return (Document) resourceController.getSession().getObject(pwcId);
     }
-
-    return pwcDoc.getContentStream().getStream();
+    return document;
   }
 
   @Override
   public OutputStream getOutputStream() throws IOException {
-    return new ByteArrayOutputStream() {
+    final MessageDigest digest = ContentDigestCache.createDigest();
+    // The content is uploaded when the stream is closed. Large documents are
+    // kept in a temporary file instead of the heap.
+    return new SpillingOutputStream() {
+      @Override
+      public void write(int b) throws IOException {
+        super.write(b);
+        digest.update((byte) b);
+      }
+
+      @Override
+      public void write(byte[] b, int off, int len) throws IOException {
+        super.write(b, off, len);
+        digest.update(b, off, len);
+      }
+
       @Override
       public void close() throws IOException {
-        Document document = null;
-        String documentUrl = null;
-        boolean newDocument = false;
-
-        try {
-          documentUrl = getURL().toExternalForm();
-          document = (Document) getCMISObject(documentUrl);
-
-        } catch (CmisObjectNotFoundException e) {
-          // If created document doesn't exist we create one
-          documentUrl = createDocument();
-          document = (Document) getCMISObject(documentUrl);
-          newDocument = true;
+        if (!isClosed()) {
+          super.close();
+          try {
+            saveContent(this, digest.digest());
+          } finally {
+            dispose();
+          }
         }
+      }
+    };
+  }
+
+  /**
+   * Uploads the content written in the output stream.
+   * 
+   * @param content
+   *          The written content.
+   * @param digest
+   *          Digest of the written content.
+   * 
+   * @throws IOException
+   *           Unable to read the content.
+   */
+  private void saveContent(SpillingOutputStream content, byte[] digest) throws IOException {
+    Document document = null;
+    String originalUrl = getURL().toExternalForm();
+    String documentUrl = null;
+    boolean newDocument = false;
+    ContentDigestCache digestCache = ContentDigestCache.getInstance();
+
+    try {
+      documentUrl = originalUrl;
+      document = (Document) getCMISObject(documentUrl);
+
+    } catch (CmisObjectNotFoundException e) {
+      // If created document doesn't exist we create one
+      documentUrl = createDocument();
+      document = (Document) getCMISObject(documentUrl);
+      newDocument = true;
+    }
+
+    if (!newDocument) {
+      Document source = getContentSource(document);
+      if (digestCache.matches(source.getId(), source.getChangeToken(), digest)) {
+        // Nothing changed since the last read or save, typically an autosave.
+        logger.debug("Content unchanged, skip saving: " + originalUrl);
+        return;
+      }
+    }
 
-        // All bytes have been written.
-        byte[] byteArray = toByteArray();
-
-        ContentStreamImpl contentStream = new ContentStreamImpl(document.getName(),
-            BigInteger.valueOf(byteArray.length), document.getContentStreamMimeType(),
-            new ByteArrayInputStream(byteArray));
-
-        /**
-         * Here we check if document is versionable and do operation. For
-         * versionable document we get the PWC to save the new content stream.
-         * After this we check in (as minor) document if it wasn't check out. If
-         * document is newly we check-in it as major version and saving the
-         * template content stream from client-side.
-         * 
-         */
-        if (!document.isVersionable()) {
-          document.setContentStream(contentStream, true);
+    // The object that holds the saved content.
+    Document saved;
+
+    try (InputStream in = content.openInputStream()) {
+      ContentStreamImpl contentStream = new ContentStreamImpl(document.getName(),
+          BigInteger.valueOf(content.getSize()), document.getContentStreamMimeType(), in);
+
+      /**
+       * Here we check if document is versionable and do operation. For
+       * versionable document we get the PWC to save the new content stream.
+       * After this we check in (as minor) document if it wasn't check out. If
+       * document is newly we check-in it as major version and saving the
+       * template content stream from client-side.
+       * 
+       */
+      if (!document.isVersionable()) {
+        document.setContentStream(contentStream, true);
+        saved = document;
+      } else {
+        Document pwcDoc = null;
+        boolean wasChecked = false;
+        document = document.getObjectOfLatestVersion(false);
+
+        if (document.isVersionSeriesCheckedOut()) {
+          String pwcId = document.getVersionSeriesCheckedOutId();
+          pwcDoc = (Document) resourceController.getSession().getObject(pwcId);
         } else {
-          Document pwcDoc = null;
-          boolean wasChecked = false;
-          document = document.getObjectOfLatestVersion(false);
-
-          if (document.isVersionSeriesCheckedOut()) {
-            String pwcId = document.getVersionSeriesCheckedOutId();
-            pwcDoc = (Document) resourceController.getSession().getObject(pwcId);
-          } else {
-            pwcDoc = (Document) resourceController.getSession().getObject(document.checkOut());
-            wasChecked = true;
-          }
+          pwcDoc = (Document) resourceController.getSession().getObject(document.checkOut());
+          wasChecked = true;
+        }
 
-          pwcDoc.setContentStream(contentStream, true);
+        pwcDoc.setContentStream(contentStream, true);
 
-          if (newDocument) {
-            pwcDoc.checkIn(true, null, null, " ");
-          } else if (wasChecked) {
-            pwcDoc.checkIn(false, null, null, " ");
-          }
+        if (newDocument || wasChecked) {
+          ObjectId version = pwcDoc.checkIn(newDocument, null, null, " ");
+          digestCache.invalidateObject(pwcDoc.getId());
+          saved = (Document) resourceController.getSession().getObject(version);
+        } else {
+          saved = pwcDoc;
         }
       }
-    };
+    }
+
+    // The content was refreshed after the upload so its change token is current.
+    digestCache.put(saved.getId(), saved.getChangeToken(), digest);
   }
 
   /**
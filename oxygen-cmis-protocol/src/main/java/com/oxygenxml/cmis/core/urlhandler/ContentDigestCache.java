@@ -0,0 +1,200 @@
+package com.oxygenxml.cmis.core.urlhandler;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+
+import org.apache.chemistry.opencmis.client.api.Document;
+
+import com.oxygenxml.cmis.core.cache.ExpiringCache;
+
+/**
+ * Remembers a digest of the content last read or written through the custom
+ * URLs, for each object that holds the content: the document or its private
+ * working copy. The autosave of an editor in which nothing changed writes back
+ * exactly that content, so the save can be skipped: no check-out, no new
+ * version.
+ *
+ * A digest is paired with the change token of the object it was read from or
+ * written to. Once the object changes on the server, by any user, the token
+ * changes too and the next save is no longer skipped. Servers that don't
+ * report change tokens never skip a save.
+ */
+public class ContentDigestCache {
+
+  /**
+   * Digest algorithm.
+   */
+  private static final String DIGEST_ALGORITHM = "SHA-256";
+
+  /**
+   * Maximum number of documents remembered.
+   */
+  private static final int MAX_ENTRIES = 1000;
+
+  /**
+   * A document not read or saved for this long is forgotten (1 hour).
+   */
+  private static final long IDLE_TIMEOUT = 60 * 60 * 1000L;
+
+  /**
+   * Singleton instance.
+   */
+  private static final ContentDigestCache instance = new ContentDigestCache();
+
+  /**
+   * A digest together with the change token of the object it belongs to.
+   */
+  private static class VersionDigest {
+    private final String changeToken;
+    private final byte[] digest;
+
+    VersionDigest(String changeToken, byte[] digest) {
+      this.changeToken = changeToken;
+      this.digest = digest;
+    }
+  }
+
+  /**
+   * The digests, by object ID.
+   */
+  private final ExpiringCache<String, VersionDigest> digests = ExpiringCache.expireAfterAccess(MAX_ENTRIES,
+      IDLE_TIMEOUT);
+
+  /**
+   * Private constructor.
+   */
+  private ContentDigestCache() {
+  }
+
+  /**
+   * @return The shared instance.
+   */
+  public static ContentDigestCache getInstance() {
+    return instance;
+  }
+
+  /**
+   * @return A new digest of the algorithm used by the cache.
+   */
+  static MessageDigest createDigest() {
+    try {
+      return MessageDigest.getInstance(DIGEST_ALGORITHM);
+    } catch (NoSuchAlgorithmException e) {
+      // Every Java platform must support it.
+      throw new IllegalStateException(e);
+    }
+  }
+
+  /**
+   * @param objectId
+   *          The ID of the object that holds the content.
+   * @param changeToken
+   *          The current change token of the object, can be <code>null</code>.
+   * @param digest
+   *          Digest of the content about to be saved.
+   *
+   * @return <code>true</code> if it is the content last read or written and the
+   *         object didn't change since.
+   */
+  boolean matches(String objectId, String changeToken, byte[] digest) {
+    VersionDigest known = digests.get(objectId);
+    return changeToken != null && known != null && changeToken.equals(known.changeToken)
+        && Arrays.equals(known.digest, digest);
+  }
+
+  /**
+   * Remembers the digest of the content read or written.
+   *
+   * @param objectId
+   *          The ID of the object that holds the content.
+   * @param changeToken
+   *          The change token of the object, can be <code>null</code>.
+   * @param digest
+   *          The digest.
+   */
+  void put(String objectId, String changeToken, byte[] digest) {
+    if (changeToken != null) {
+      digests.put(objectId, new VersionDigest(changeToken, digest));
+    } else {
+      digests.remove(objectId);
+    }
+  }
+
+  /**
+   * Forgets the content of an object.
+   *
+   * @param objectId
+   *          The ID of the object.
+   */
+  public void invalidateObject(String objectId) {
+    digests.remove(objectId);
+  }
+
+  /**
+   * Forgets the content of a document and of its private working copy. Called
+   * when the document is checked in, its check-out is canceled or it is
+   * renamed or moved.
+   *
+   * @param document
+   *          The document.
+   */
+  public void invalidateDocument(Document document) {
+    digests.remove(document.getId());
+    String pwcId = document.getVersionSeriesCheckedOutId();
+    if (pwcId != null) {
+      digests.remove(pwcId);
+    }
+  }
+
+  /**
+   * Wraps a content stream so that its digest is remembered once it is read to
+   * the end.
+   *
+   * @param objectId
+   *          The ID of the object that holds the content.
+   * @param changeToken
+   *          The change token of the object, can be <code>null</code>.
+   * @param in
+   *          The content stream.
+   *
+   * @return The wrapped stream.
+   */
+  InputStream recordWhileReading(final String objectId, final String changeToken, InputStream in) {
+    return new DigestInputStream(in, createDigest()) {
+      private boolean recorded = false;
+
+      @Override
+      public int read() throws IOException {
+        int b = super.read();
+        if (b == -1) {
+          recordDigest();
+        }
+        return b;
+      }
+
+      @Override
+      public int read(byte[] b, int off, int len) throws IOException {
+        int read = super.read(b, off, len);
+        if (read == -1) {
+          recordDigest();
+        }
+        return read;
+      }
+
+      /**
+       * Called at the end of the content, so a partially read content is never
+       * recorded.
+       */
+      private void recordDigest() {
+        if (!recorded) {
+          recorded = true;
+          put(objectId, changeToken, getMessageDigest().digest());
+        }
+      }
+    };
+  }
+}
@@ -0,0 +1,192 @@
+package com.oxygenxml.cmis.core.urlhandler;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+import org.apache.log4j.Logger;
+
+/**
+ * Collects the bytes of a document that will be uploaded once they are all
+ * written. Small documents are kept in memory, larger ones are moved to a
+ * temporary file so that the memory used by a save is bounded whatever the
+ * document size.
+ *
+ * The content is read back with {@link #openInputStream()} and the temporary
+ * file is removed by {@link #dispose()}.
+ */
+public class SpillingOutputStream extends OutputStream {
+
+  /**
+   * Logging support.
+   */
+  private static final Logger logger = Logger.getLogger(SpillingOutputStream.class);
+
+  /**
+   * Documents larger than this (1 MB) go to a temporary file.
+   */
+  public static final int DEFAULT_THRESHOLD = 1024 * 1024;
+
+  /**
+   * A byte array stream that can be read back without copying its buffer.
+   */
+  private static class MemoryBuffer extends ByteArrayOutputStream {
+    MemoryBuffer(int size) {
+      super(size);
+    }
+
+    InputStream toInputStream() {
+      return new ByteArrayInputStream(buf, 0, count);
+    }
+  }
+
+  /**
+   * Size over which the content is moved to a file.
+   */
+  private final int threshold;
+
+  /**
+   * The content while it is small enough. <code>null</code> once spilled.
+   */
+  private MemoryBuffer memory = new MemoryBuffer(8 * 1024);
+
+  /**
+   * The temporary file, once spilled.
+   */
+  private File file;
+
+  /**
+   * Writes in the temporary file.
+   */
+  private OutputStream fileOutput;
+
+  /**
+   * Number of bytes written.
+   */
+  private long size;
+
+  /**
+   * <code>true</code> after the stream was closed.
+   */
+  private boolean closed;
+
+  /**
+   * Constructor.
+   */
+  public SpillingOutputStream() {
+    this(DEFAULT_THRESHOLD);
+  }
+
+  /**
+   * Constructor.
+   *
+   * @param threshold
+   *          Number of bytes kept in memory before moving to a file.
+   */
+  public SpillingOutputStream(int threshold) {
+    this.threshold = threshold;
+  }
+
+  @Override
+  public void write(int b) throws IOException {
+    ensureCapacity(1);
+    currentOutput().write(b);
+    size++;
+  }
+
+  @Override
+  public void write(byte[] b, int off, int len) throws IOException {
+    ensureCapacity(len);
+    currentOutput().write(b, off, len);
+    size += len;
+  }
+
+  @Override
+  public void flush() throws IOException {
+    if (fileOutput != null) {
+      fileOutput.flush();
+    }
+  }
+
+  @Override
+  public void close() throws IOException {
+    if (!closed) {
+      closed = true;
+      if (fileOutput != null) {
+        fileOutput.close();
+      }
+    }
+  }
+
+  /**
+   * @return <code>true</code> if close() was already called.
+   */
+  protected boolean isClosed() {
+    return closed;
+  }
+
+  /**
+   * @return The number of bytes written.
+   */
+  public long getSize() {
+    return size;
+  }
+
+  /**
+   * Reads the written content. Call it after the stream is closed.
+   *
+   * @return A stream over the content. The caller must close it.
+   *
+   * @throws IOException
+   *           Unable to read the temporary file.
+   */
+  public InputStream openInputStream() throws IOException {
+    return file != null ? new BufferedInputStream(new FileInputStream(file)) : memory.toInputStream();
+  }
+
+  /**
+   * Releases the content, removing the temporary file if there is one.
+   */
+  public void dispose() {
+    memory = null;
+    if (file != null && !file.delete()) {
+      logger.warn("Unable to delete the temporary file: " + file);
+      file.deleteOnExit();
+    }
+  }
+
+  /**
+   * Moves the content to a temporary file if it grows over the threshold.
+   *
+   * @param length
+   *          Number of bytes about to be written.
+   *
+   * @throws IOException
+   *           Unable to create the temporary file.
+   */
+  private void ensureCapacity(int length) throws IOException {
+    if (closed) {
+      throw new IOException("Stream closed");
+    }
+    if (file == null && size + length > threshold) {
+      file = File.createTempFile("cmis", ".upload");
+      fileOutput = new BufferedOutputStream(new FileOutputStream(file));
+      memory.writeTo(fileOutput);
+      memory = null;
+    }
+  }
+
+  /**
+   * @return The stream that currently receives the content.
+   */
+  private OutputStream currentOutput() {
+    return fileOutput != null ? fileOutput : memory;
+  }
+}
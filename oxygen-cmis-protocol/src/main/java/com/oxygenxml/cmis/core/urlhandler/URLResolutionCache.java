@@ -0,0 +1,108 @@
+package com.oxygenxml.cmis.core.urlhandler;
+
+import java.net.URL;
+
+import com.oxygenxml.cmis.core.cache.ExpiringCache;
+
+/**
+ * Remembers how the custom cmis:// URLs were parsed: the server URL, the
+ * repository and the path. Documents that are reopened and saved over and over
+ * again skip the URL parsing.
+ *
+ * Only the text of the URL is parsed, so the entries never go stale and can be
+ * shared by all the users. The object at the path is always looked up on the
+ * server: a lookup by ID costs the same round trip and may find an object that
+ * was renamed or moved meanwhile.
+ */
+public class URLResolutionCache {
+
+  /**
+   * Maximum number of URLs remembered.
+   */
+  private static final int MAX_ENTRIES = 1000;
+
+  /**
+   * How long a parsed URL is kept after its last use (10 minutes).
+   */
+  private static final long IDLE_TIME = 10 * 60 * 1000L;
+
+  /**
+   * Singleton instance.
+   */
+  private static final URLResolutionCache instance = new URLResolutionCache();
+
+  /**
+   * The parsed URLs.
+   */
+  private final ExpiringCache<String, ResolvedURL> entries = ExpiringCache.expireAfterAccess(MAX_ENTRIES,
+      IDLE_TIME);
+
+  /**
+   * Private constructor.
+   */
+  private URLResolutionCache() {
+  }
+
+  /**
+   * @return The shared instance.
+   */
+  public static URLResolutionCache getInstance() {
+    return instance;
+  }
+
+  /**
+   * @param url
+   *          A custom URL.
+   *
+   * @return How the URL was parsed or <code>null</code>.
+   */
+  ResolvedURL get(String url) {
+    return entries.get(url);
+  }
+
+  /**
+   * Remembers how a URL was parsed.
+   *
+   * @param url
+   *          A custom URL.
+   * @param resolved
+   *          The parsed URL.
+   */
+  void put(String url, ResolvedURL resolved) {
+    entries.put(url, resolved);
+  }
+
+  /**
+   * Forgets all the URLs.
+   */
+  public void clear() {
+    entries.clear();
+  }
+
+  /**
+   * The parts of a custom URL.
+   */
+  static class ResolvedURL {
+    private final URL serverURL;
+    private final String repositoryId;
+    private final String path;
+
+    ResolvedURL(URL serverURL, String repositoryId, String path) {
+      this.serverURL = serverURL;
+      this.repositoryId = repositoryId;
+      this.path = path;
+    }
+
+    URL getServerURL() {
+      return serverURL;
+    }
+
+    String getRepositoryId() {
+      return repositoryId;
+    }
+
+    String getPath() {
+      return path;
+    }
+  }
+}
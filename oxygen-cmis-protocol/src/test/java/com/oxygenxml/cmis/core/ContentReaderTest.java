@@ -0,0 +1,84 @@
+package com.oxygenxml.cmis.core;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.Test;
+
+/**
+ * Tests for detecting the charset of a content and decoding it.
+ */
+public class ContentReaderTest {
+
+  private static final String TEXT = "caf\u00e9 \u20ac \ud83d\ude00";
+
+  @Test
+  public void testCharsetFromMimeType() throws IOException {
+    byte[] content = TEXT.getBytes(StandardCharsets.UTF_16BE);
+
+    assertEquals(TEXT, read(content, "text/plain; charset=\"UTF-16BE\""));
+  }
+
+  @Test
+  public void testCharsetFromXmlDeclaration() throws IOException {
+    String xml = "<?xml version=\"1.0\" encoding='ISO-8859-1'?><a>caf\u00e9</a>";
+
+    assertEquals(xml, read(xml.getBytes(StandardCharsets.ISO_8859_1), "text/xml"));
+  }
+
+  @Test
+  public void testByteOrderMarkIsSkipped() throws IOException {
+    ByteArrayOutputStream content = new ByteArrayOutputStream();
+    content.write(new byte[] { (byte) 0xFF, (byte) 0xFE });
+    content.write(TEXT.getBytes(StandardCharsets.UTF_16LE));
+
+    // The byte order mark wins over the MIME type.
+    assertEquals(TEXT, read(content.toByteArray(), "text/plain; charset=ISO-8859-1"));
+  }
+
+  @Test
+  public void testDefaultsToUtf8() throws IOException {
+    StringBuilder text = new StringBuilder();
+    for (int i = 0; i < 5000; i++) {
+      text.append(TEXT).append('\n');
+    }
+
+    assertEquals(text.toString(), read(text.toString().getBytes(StandardCharsets.UTF_8), null));
+    assertEquals(StandardCharsets.UTF_8,
+        ContentReader.detectCharset(ByteBuffer.wrap(new byte[0]), "text/plain; charset=unknown-x"));
+  }
+
+  @Test
+  public void testSingleCharacterReads() throws IOException {
+    StringBuilder text = new StringBuilder();
+    try (Reader reader = ContentReader.open(new ByteArrayInputStream(TEXT.getBytes(StandardCharsets.UTF_8)), null)) {
+      int c;
+      while ((c = reader.read()) != -1) {
+        text.append((char) c);
+      }
+    }
+
+    assertEquals(TEXT, text.toString());
+  }
+
+  /**
+   * Decodes a content with odd sized reads.
+   */
+  private static String read(byte[] content, String mimeType) throws IOException {
+    StringBuilder text = new StringBuilder();
+    try (Reader reader = ContentReader.open(new ByteArrayInputStream(content), mimeType)) {
+      char[] buffer = new char[333];
+      int read;
+      while ((read = reader.read(buffer)) != -1) {
+        text.append(buffer, 0, read);
+      }
+    }
+    return text.toString();
+  }
+}
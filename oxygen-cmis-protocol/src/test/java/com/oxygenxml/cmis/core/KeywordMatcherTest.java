@@ -0,0 +1,65 @@
+package com.oxygenxml.cmis.core;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.io.IOException;
+import java.io.StringReader;
+
+import org.junit.Test;
+
+/**
+ * Tests for finding keywords in one pass.
+ */
+public class KeywordMatcherTest {
+
+  @Test
+  public void testFindsFirstKeywordOnItsLine() throws IOException {
+    KeywordMatcher matcher = new KeywordMatcher("topic", "map");
+    String text = "<?xml version=\"1.0\"?>\n   <map title=\"Guide\">\n<topicref/>";
+
+    assertEquals("<map title=\"Guide\">", matcher.findContext(new StringReader(text), 45));
+  }
+
+  @Test
+  public void testOverlappingKeywords() {
+    // "she" and "he" end on the same character, "hers" would need more.
+    KeywordMatcher matcher = new KeywordMatcher("hers", "he", "she");
+
+    assertEquals("ushe", matcher.findContext("ushers", 4));
+  }
+
+  @Test
+  public void testKeepsContextAroundKeyword() {
+    KeywordMatcher matcher = new KeywordMatcher("needle");
+    String line = "aaaaaaaaaaaaaaaaaaaa needle bbbbbbbbbbbbbbbbbbbb";
+
+    assertEquals("aaaa needle bbbb", matcher.findContext(line, 16));
+  }
+
+  @Test
+  public void testMatchesDoNotSpanLines() {
+    KeywordMatcher matcher = new KeywordMatcher("ab");
+
+    assertNull(matcher.findContext("xa\nbx", 10));
+    assertEquals("ab", matcher.findContext("xa\nab", 10));
+  }
+
+  @Test
+  public void testLongLineIsReadInOnePass() {
+    StringBuilder line = new StringBuilder();
+    for (int i = 0; i < 100000; i++) {
+      line.append("<p>text</p>");
+    }
+    line.append("<p>target</p>");
+
+    assertEquals("</p><p>target</p>", new KeywordMatcher("target").findContext(line.toString(), 17));
+  }
+
+  @Test
+  public void testContextIsTrimmed() {
+    KeywordMatcher matcher = new KeywordMatcher("with");
+
+    assertEquals("line with the", matcher.findContext("  a very long line with the word in it ", 14));
+  }
+}
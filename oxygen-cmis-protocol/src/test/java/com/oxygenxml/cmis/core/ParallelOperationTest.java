@@ -0,0 +1,108 @@
+package com.oxygenxml.cmis.core;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.chemistry.opencmis.commons.exceptions.CmisConnectionException;
+import org.apache.chemistry.opencmis.commons.exceptions.CmisConstraintException;
+import org.junit.Test;
+
+import com.oxygenxml.cmis.core.ParallelOperation.Failure;
+
+/**
+ * Tests for running a task on many items in parallel.
+ */
+public class ParallelOperationTest {
+
+  @Test
+  public void testItemsSubmittedByTasksAreAwaited() throws InterruptedException {
+    Set<Integer> processed = ConcurrentHashMap.newKeySet();
+    ParallelOperation<Integer> operation = new ParallelOperation<>(3, 1, null);
+
+    // Each item up to 100 submits the next two, like a tree walk.
+    ParallelOperation.Task<Integer> task = new ParallelOperation.Task<Integer>() {
+      @Override
+      public void run(Integer item) {
+        processed.add(item);
+        if (item < 100) {
+          operation.submit(item * 2, this);
+          operation.submit(item * 2 + 1, this);
+        }
+      }
+    };
+    operation.submit(1, task);
+
+    assertTrue(operation.await().isEmpty());
+    assertEquals(199, processed.size());
+  }
+
+  @Test
+  public void testTransientErrorsAreRetried() throws InterruptedException {
+    AtomicInteger attempts = new AtomicInteger();
+    ParallelOperation<String> operation = new ParallelOperation<>(2, 3, null);
+
+    operation.submit("doc", item -> {
+      if (attempts.incrementAndGet() < 3) {
+        throw new CmisConnectionException("timeout");
+      }
+    });
+
+    assertTrue(operation.await().isEmpty());
+    assertEquals(3, attempts.get());
+  }
+
+  @Test
+  public void testFailuresAreReported() throws InterruptedException {
+    AtomicInteger attempts = new AtomicInteger();
+    AtomicInteger lastCompleted = new AtomicInteger();
+    ParallelOperation<String> operation = new ParallelOperation<>(2, 3,
+        (completed, submitted) -> lastCompleted.set(completed));
+
+    operation.submit("ok", item -> attempts.incrementAndGet());
+    operation.submit("locked", item -> {
+      attempts.incrementAndGet();
+      throw new CmisConstraintException("already checked out");
+    });
+
+    List<Failure<String>> failures = operation.await();
+
+    assertEquals(1, failures.size());
+    assertEquals("locked", failures.get(0).getItem());
+    // Permanent errors are not retried.
+    assertEquals(2, attempts.get());
+    assertEquals(2, lastCompleted.get());
+  }
+
+  @Test
+  public void testReportedFailuresAreListed() throws InterruptedException {
+    ParallelOperation<String> operation = new ParallelOperation<>(2, 1, null);
+    operation.submit("doc", item -> {
+      throw new CmisConstraintException("locked");
+    });
+    operation.await();
+
+    // Found by the caller after the tasks ran.
+    operation.reportFailure("folder", new CmisConstraintException("not empty"));
+
+    List<Failure<String>> failures = operation.await();
+    assertEquals(2, failures.size());
+    assertEquals("folder", failures.get(1).getItem());
+  }
+
+  @Test
+  public void testCanceledOperationDropsItems() throws InterruptedException {
+    AtomicInteger runs = new AtomicInteger();
+    ParallelOperation<Integer> operation = new ParallelOperation<>(1, 1, null);
+    operation.cancel();
+
+    operation.submit(1, item -> runs.incrementAndGet());
+
+    assertTrue(operation.await().isEmpty());
+    assertEquals(0, runs.get());
+  }
+}
@@ -0,0 +1,86 @@
+package com.oxygenxml.cmis.core;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+/**
+ * Tests for reading content one range at a time.
+ */
+public class RangedContentInputStreamTest {
+
+  private static final byte[] CONTENT = "0123456789abcdefghij".getBytes(StandardCharsets.UTF_8);
+
+  /**
+   * The requested ranges, as "offset:length".
+   */
+  private final List<String> requests = new ArrayList<>();
+
+  private InputStream openRange(long offset, long length) {
+    requests.add(offset + ":" + length);
+    if (offset >= CONTENT.length) {
+      return null;
+    }
+    int end = (int) Math.min(CONTENT.length, offset + length);
+    return new ByteArrayInputStream(Arrays.copyOfRange(CONTENT, (int) offset, end));
+  }
+
+  private InputStream openWhole(long offset, long length) {
+    requests.add(offset + ":" + length);
+    return new ByteArrayInputStream(CONTENT);
+  }
+
+  private static String readAll(InputStream in) throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    byte[] buffer = new byte[3];
+    int read;
+    while ((read = in.read(buffer)) != -1) {
+      out.write(buffer, 0, read);
+    }
+    in.close();
+    return new String(out.toByteArray(), StandardCharsets.UTF_8);
+  }
+
+  @Test
+  public void testReadsAllRanges() throws IOException {
+    String read = readAll(new RangedContentInputStream(this::openRange, 8, 1000));
+
+    assertEquals("0123456789abcdefghij", read);
+    assertEquals(Arrays.asList("0:8", "8:8", "16:8"), requests);
+  }
+
+  @Test
+  public void testStopsAtLimit() throws IOException {
+    String read = readAll(new RangedContentInputStream(this::openRange, 8, 12));
+
+    assertEquals("0123456789ab", read);
+    assertEquals(Arrays.asList("0:8", "8:4"), requests);
+  }
+
+  @Test
+  public void testContentLengthMultipleOfChunk() throws IOException {
+    String read = readAll(new RangedContentInputStream(this::openRange, 10, CONTENT.length));
+
+    assertEquals("0123456789abcdefghij", read);
+    // Nothing is requested after the end of the content.
+    assertEquals(Arrays.asList("0:10", "10:10"), requests);
+  }
+
+  @Test
+  public void testServerIgnoringRanges() throws IOException {
+    String read = readAll(new RangedContentInputStream(this::openWhole, 8, 15));
+
+    assertEquals("0123456789abcde", read);
+    // The whole content came with the first response.
+    assertEquals(Arrays.asList("0:8"), requests);
+  }
+}
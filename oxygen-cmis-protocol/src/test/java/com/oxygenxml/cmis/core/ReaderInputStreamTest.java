@@ -0,0 +1,51 @@
+package com.oxygenxml.cmis.core;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.Test;
+
+/**
+ * Tests for encoding a reader as it is read.
+ */
+public class ReaderInputStreamTest {
+
+  @Test
+  public void testLargeContentIsEncoded() throws IOException {
+    StringBuilder content = new StringBuilder();
+    for (int i = 0; i < 10000; i++) {
+      // Multi-byte characters across the buffer boundaries.
+      content.append("line ").append(i).append(" \u00e9\u20ac\ud83d\ude00\n");
+    }
+
+    byte[] encoded = readAll(new ReaderInputStream(new StringReader(content.toString()), StandardCharsets.UTF_8));
+
+    assertArrayEquals(content.toString().getBytes(StandardCharsets.UTF_8), encoded);
+  }
+
+  @Test
+  public void testEmptyContent() throws IOException {
+    try (InputStream in = new ReaderInputStream(new StringReader(""), StandardCharsets.UTF_8)) {
+      assertEquals(-1, in.read());
+    }
+  }
+
+  private static byte[] readAll(InputStream in) throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    try (InputStream stream = in) {
+      // Odd sized reads.
+      byte[] buffer = new byte[777];
+      int read;
+      while ((read = stream.read(buffer)) != -1) {
+        out.write(buffer, 0, read);
+      }
+    }
+    return out.toByteArray();
+  }
+}
@@ -0,0 +1,86 @@
+package com.oxygenxml.cmis.core.cache;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import org.junit.Test;
+
+/**
+ * Tests for the size and time bounded cache.
+ */
+public class ExpiringCacheTest {
+
+  /**
+   * A cache with a clock we control.
+   */
+  private static class TestCache extends ExpiringCache<String, String> {
+    private long time = 0;
+
+    TestCache(int maxSize, long expireAfterMillis, boolean refreshOnAccess) {
+      super(maxSize, expireAfterMillis, refreshOnAccess);
+    }
+
+    @Override
+    protected long now() {
+      return time;
+    }
+  }
+
+  @Test
+  public void testLeastRecentlyUsedIsEvicted() {
+    TestCache cache = new TestCache(2, 1000, true);
+    cache.put("a", "1");
+    cache.put("b", "2");
+    // Touch "a" so that "b" becomes the eldest.
+    assertEquals("1", cache.get("a"));
+
+    cache.put("c", "3");
+
+    assertEquals(2, cache.size());
+    assertEquals("1", cache.get("a"));
+    assertNull(cache.get("b"));
+    assertEquals("3", cache.get("c"));
+  }
+
+  @Test
+  public void testExpireAfterAccess() {
+    TestCache cache = new TestCache(10, 1000, true);
+    cache.put("a", "1");
+
+    cache.time = 900;
+    assertEquals("1", cache.get("a"));
+
+    // Still alive because the previous read extended its life.
+    cache.time = 1800;
+    assertEquals("1", cache.get("a"));
+
+    cache.time = 2801;
+    assertNull(cache.get("a"));
+    assertEquals(0, cache.size());
+  }
+
+  @Test
+  public void testExpireAfterWrite() {
+    TestCache cache = new TestCache(10, 1000, false);
+    cache.put("a", "1");
+
+    cache.time = 900;
+    assertEquals("1", cache.get("a"));
+
+    cache.time = 1001;
+    assertNull(cache.get("a"));
+  }
+
+  @Test
+  public void testRemoveIf() {
+    TestCache cache = new TestCache(10, 1000, false);
+    cache.put("cmis://server/repo/folder/a", "1");
+    cache.put("cmis://server/repo/folder/b", "2");
+    cache.put("cmis://server/repo/other", "3");
+
+    cache.removeIf(key -> key.startsWith("cmis://server/repo/folder/"));
+
+    assertEquals(1, cache.size());
+    assertEquals("3", cache.get("cmis://server/repo/other"));
+  }
+}
@@ -0,0 +1,84 @@
+package com.oxygenxml.cmis.core.urlhandler;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.MessageDigest;
+
+import org.junit.After;
+import org.junit.Test;
+
+/**
+ * Tests for recognizing a save that doesn't change the content.
+ */
+public class ContentDigestCacheTest {
+
+  private static final String OBJECT_ID = "doc-1";
+
+  private static final String CHANGE_TOKEN = "1";
+
+  @After
+  public void tearDown() {
+    ContentDigestCache.getInstance().invalidateObject(OBJECT_ID);
+  }
+
+  /**
+   * The content read to the end is recognized when written back.
+   */
+  @Test
+  public void testReadContentIsRecorded() throws IOException {
+    byte[] content = "<root>text</root>".getBytes("UTF-8");
+    ContentDigestCache cache = ContentDigestCache.getInstance();
+
+    try (InputStream in = cache.recordWhileReading(OBJECT_ID, CHANGE_TOKEN, new ByteArrayInputStream(content))) {
+      byte[] buffer = new byte[5];
+      while (in.read(buffer) != -1) {
+        // Read everything.
+      }
+    }
+
+    assertTrue(cache.matches(OBJECT_ID, CHANGE_TOKEN, digest(content)));
+    assertFalse(cache.matches(OBJECT_ID, CHANGE_TOKEN, digest("<root>changed</root>".getBytes("UTF-8"))));
+  }
+
+  /**
+   * The same content doesn't match once the object changed on the server.
+   */
+  @Test
+  public void testChangedObjectDoesNotMatch() throws IOException {
+    byte[] content = "<root>text</root>".getBytes("UTF-8");
+    ContentDigestCache cache = ContentDigestCache.getInstance();
+
+    cache.put(OBJECT_ID, CHANGE_TOKEN, digest(content));
+
+    assertFalse(cache.matches(OBJECT_ID, "2", digest(content)));
+    assertFalse(cache.matches(OBJECT_ID, null, digest(content)));
+    assertFalse(cache.matches("doc-2", CHANGE_TOKEN, digest(content)));
+
+    cache.invalidateObject(OBJECT_ID);
+    assertFalse(cache.matches(OBJECT_ID, CHANGE_TOKEN, digest(content)));
+  }
+
+  /**
+   * A content read only partially is not recorded.
+   */
+  @Test
+  public void testPartialReadIsNotRecorded() throws IOException {
+    byte[] content = "<root>text</root>".getBytes("UTF-8");
+    ContentDigestCache cache = ContentDigestCache.getInstance();
+
+    try (InputStream in = cache.recordWhileReading(OBJECT_ID, CHANGE_TOKEN, new ByteArrayInputStream(content))) {
+      in.read(new byte[5]);
+    }
+
+    assertFalse(cache.matches(OBJECT_ID, CHANGE_TOKEN, digest(content)));
+  }
+
+  private static byte[] digest(byte[] content) {
+    MessageDigest digest = ContentDigestCache.createDigest();
+    return digest.digest(content);
+  }
+}
@@ -0,0 +1,59 @@
+package com.oxygenxml.cmis.core.urlhandler;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+import org.junit.Test;
+
+/**
+ * Tests for collecting the content of a save in memory or in a temporary file.
+ */
+public class SpillingOutputStreamTest {
+
+  @Test
+  public void testSmallContentStaysInMemory() throws IOException {
+    byte[] content = "<root/>".getBytes("UTF-8");
+    SpillingOutputStream out = new SpillingOutputStream(100);
+    out.write(content);
+    out.close();
+
+    assertEquals(content.length, out.getSize());
+    assertArrayEquals(content, readAll(out));
+    out.dispose();
+  }
+
+  @Test
+  public void testLargeContentIsSpilled() throws IOException {
+    byte[] content = new byte[250];
+    for (int i = 0; i < content.length; i++) {
+      content[i] = (byte) i;
+    }
+
+    SpillingOutputStream out = new SpillingOutputStream(100);
+    // Cross the threshold in the middle of the writes.
+    out.write(content, 0, 60);
+    out.write(content[60]);
+    out.write(content, 61, content.length - 61);
+    out.close();
+
+    assertEquals(content.length, out.getSize());
+    assertArrayEquals(content, readAll(out));
+    out.dispose();
+  }
+
+  private static byte[] readAll(SpillingOutputStream out) throws IOException {
+    ByteArrayOutputStream result = new ByteArrayOutputStream();
+    try (InputStream in = out.openInputStream()) {
+      byte[] buffer = new byte[64];
+      int read;
+      while ((read = in.read(buffer)) != -1) {
+        result.write(buffer, 0, read);
+      }
+    }
+    return result.toByteArray();
+  }
+}
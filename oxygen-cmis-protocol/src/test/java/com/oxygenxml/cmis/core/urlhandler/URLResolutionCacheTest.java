@@ -0,0 +1,40 @@
+package com.oxygenxml.cmis.core.urlhandler;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.After;
+import org.junit.Test;
+
+/**
+ * Tests for remembering how the custom URLs were parsed.
+ */
+public class URLResolutionCacheTest {
+
+  private static final String DOC_URL = "cmis://http%3A%2F%2Flocalhost%3A8080%2FB%2Fatom11/A1/folder/doc.xml";
+
+  @After
+  public void tearDown() {
+    URLResolutionCache.getInstance().clear();
+  }
+
+  /**
+   * Parsing a URL a second time returns the same parts.
+   */
+  @Test
+  public void testServerURLIsRemembered() throws MalformedURLException {
+    URL serverURL = CmisURLConnection.getServerURL(DOC_URL, new HashMap<>());
+    assertEquals("http://localhost:8080/B/atom11", serverURL.toExternalForm());
+    assertNotNull(URLResolutionCache.getInstance().get(DOC_URL));
+
+    Map<String, String> param = new HashMap<>();
+    assertEquals(serverURL, CmisURLConnection.getServerURL(DOC_URL, param));
+    assertEquals("A1", param.get("repo"));
+    assertEquals("/folder/doc.xml", param.get("path"));
+  }
+}
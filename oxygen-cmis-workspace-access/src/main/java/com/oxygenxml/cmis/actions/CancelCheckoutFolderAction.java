@@ -48,17 +48,30 @@ public class CancelCheckoutFolderAction extends AbstractAction {
    * @see com.oxygenxml.cmis.core.model.IResource
    */
   public CancelCheckoutFolderAction(IResource resource, IResource currentParent, ResourcesBrowser itemsPresenter) {
-    super(TranslationResourceController.getMessage("CANCEL_CHECK_OUT_FOLDER_ACTION_TITLE"));
+    this(resource, currentParent, itemsPresenter, new FolderCheckoutState(resource));
+  }
 
-    // Set logger level
+  /**
+   * Constructor that receives the resource to process. The action is enabled
+   * once the folder state tells there is a check-out to cancel.
+   * 
+   * @param resource
+   * @param currentParent
+   * @param itemsPresenter
+   * @param state
+   *          The check-out state of the folder, shared by the menu actions.
+   */
+  public CancelCheckoutFolderAction(IResource resource, IResource currentParent, ResourcesBrowser itemsPresenter,
+      FolderCheckoutState state) {
+    super(TranslationResourceController.getMessage("CANCEL_CHECK_OUT_FOLDER_ACTION_TITLE"));
 
     this.resource = resource;
     this.currentParent = currentParent;
     this.itemsPresenter = itemsPresenter;
     this.resourceController = CMISAccess.getInstance().createResourceController();
 
-    setEnabled(checkCanCancelCheckoutFolder(resource));
-
+    setEnabled(false);
+    state.whenHasCheckedOut(this::setEnabled);
   }
 
   /**
@@ -160,94 +173,4 @@ public class CancelCheckoutFolderAction extends AbstractAction {
       }
     }
   }
-
-  /**
-   * Iterates each element whether, is a folder or a doc. If it's a folder it
-   * will be iterated with recursion otherwise if it's a document it needs to
-   * pass the check method.
-   * 
-   * @param resource
-   * @return Whether the cancel checkout can be applied on the resources of the
-   *         resource given.
-   */
-  private boolean checkCanCancelCheckoutFolder(IResource resource) {
-    boolean canCancel = false;
-
-    // Get all the children of the item in an iterator
-    Iterator<IResource> childrenIterator = resource.iterator();
-
-    if (childrenIterator != null) {
-
-      // While has a child, add to the model. It's enough one doc to be checkout
-      // to enable the action
-      while (childrenIterator.hasNext() && !canCancel) {
-
-        // Get the next child
-        IResource iResource = childrenIterator.next();
-
-        // Check if it's a custom type interface FolderImpl
-        if (iResource instanceof FolderImpl) {
-
-          // Call the helper method used for recursion
-          canCancel = checkCanCancelCheckoutFolder(iResource);
-
-        } else if (iResource instanceof DocumentImpl) {
-          canCancel = checkDocument(iResource);
-        }
-      }
-    }
-    return canCancel;
-  }
-
-  /**
-   * Checks if a the cancel checkout action is available for current user
-   * 
-   * @param canCancel
-   * @param iResource
-   * @return
-   */
-  private boolean checkDocument(IResource iResource) {
-    DocumentImpl doc;
-    String pwcId;
-    boolean hasPwc;
-    boolean canUserCancelCheckout;
-    Document pwc;
-    DocumentImpl pwcDoc;
-    boolean canCancel = false;
-
-    // If it is a document type of custom interface
-    try {
-      doc = ((DocumentImpl) iResource);
-
-      // Check if it's a PWC
-      if (doc.isCheckedOut() && !doc.isPrivateWorkingCopy()) {
-
-        hasPwc = false;
-        canUserCancelCheckout = false;
-
-        // Get the PWC id
-        pwcId = doc.getVersionSeriesCheckedOutId();
-
-        // If has a PWC id
-        if (pwcId != null) {
-          hasPwc = true;
-
-          // Get the pwc
-          pwc = (Document) resourceController.getSession().getObject(pwcId);
-          pwcDoc = new DocumentImpl(pwc);
-
-          // Allow cancelCheckout
-          canUserCancelCheckout = pwcDoc.canUserCancelCheckout();
-        }
-        canCancel = canUserCancelCheckout && hasPwc;
-
-      }
-
-    } catch (Exception ev) {
-
-      // Show the exception if there is one
-      logger.error("Exception check", ev);
-    }
-    return canCancel;
-  }
 }
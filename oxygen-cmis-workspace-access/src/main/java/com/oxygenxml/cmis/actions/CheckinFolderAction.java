@@ -1,19 +1,23 @@
 package com.oxygenxml.cmis.actions;
 
 import java.awt.event.ActionEvent;
+import java.util.ArrayList;
 import java.util.Iterator;
+import java.util.List;
 
 import javax.swing.AbstractAction;
 import javax.swing.JFrame;
 
-import org.apache.chemistry.opencmis.client.api.Document;
-import org.apache.chemistry.opencmis.client.api.ObjectId;
+import org.apache.chemistry.opencmis.commons.exceptions.CmisInvalidArgumentException;
+import org.apache.chemistry.opencmis.commons.exceptions.CmisNotSupportedException;
 import org.apache.log4j.Logger;
 
 import com.oxygen.cmis.dialogs.CheckinDocDialog;
 import com.oxygenxml.cmis.core.CMISAccess;
+import com.oxygenxml.cmis.core.ParallelOperation;
 import com.oxygenxml.cmis.core.ResourceController;
-import com.oxygenxml.cmis.core.model.IFolder;
+import com.oxygenxml.cmis.core.SearchController;
+import com.oxygenxml.cmis.core.SearchResultsHandler;
 import com.oxygenxml.cmis.core.model.IResource;
 import com.oxygenxml.cmis.core.model.impl.DocumentImpl;
 import com.oxygenxml.cmis.core.model.impl.FolderImpl;
@@ -55,6 +59,21 @@ public class CheckinFolderAction extends AbstractAction {
    * @see com.oxygenxml.cmis.core.model.IResource
    */
   public CheckinFolderAction(IResource resource, IResource currentParent, ResourcesBrowser itemsPresenter) {
+    this(resource, currentParent, itemsPresenter, new FolderCheckoutState(resource));
+  }
+
+  /**
+   * Constructor that receives the resource to process. The action is enabled
+   * once the folder state tells there is something to check in.
+   * 
+   * @param resource
+   * @param currentParent
+   * @param itemsPresenter
+   * @param state
+   *          The check-out state of the folder, shared by the menu actions.
+   */
+  public CheckinFolderAction(IResource resource, IResource currentParent, ResourcesBrowser itemsPresenter,
+      FolderCheckoutState state) {
 
     super(TranslationResourceController.getMessage("CHECK_IN_FOLDER_ACTION_TITLE"));
 
@@ -64,19 +83,19 @@ public class CheckinFolderAction extends AbstractAction {
     this.currentParent = currentParent;
     this.itemsPresenter = itemsPresenter;
 
-    setEnabled(checkCanCheckinFolder(resource));
-
+    setEnabled(false);
+    state.whenHasCheckedOut(this::setEnabled);
   }
 
   /**
-   * When the event was triggered cast the resource to custom interface for
-   * processing the folder using the recursion.
+   * When the event was triggered ask for the check-in message, then check in,
+   * in the background, the documents of the folder tree checked out by the
+   * user.
    * 
-   * <Code>checkinFolder</Code> will be called whenever a folder child folder
-   * will be encountered, otherwise the checkin will precede
+   * The documents are found with one query, checked in in parallel and the view
+   * is refreshed once at the end.
    * 
    * @param e
-   * @exception org.apache.chemistry.opencmis.commons.exceptions.CmisBaseException
    * 
    * @see com.oxygenxml.cmis.core.model.model.impl.FolderImpl
    * @see com.oxygenxml.cmis.core.model.model.impl.DocumentImpl
@@ -87,7 +106,6 @@ public class CheckinFolderAction extends AbstractAction {
 
     String commitMessage;
     String versioningState;
-    boolean majorCheckin = false;
     int result;
     // A comment in mandatory
     do {
@@ -105,211 +123,104 @@ public class CheckinFolderAction extends AbstractAction {
 
     // Only if the action was not canceled
     if (result != 0) {
-      majorCheckin = versioningState.equals(VERSIONING_STATE_MAJOR);
-    }
-
-    checkinFolder(resource, commitMessage, majorCheckin, result);
-
-    if (currentParent.getId().equals(SEARCH_RESULTS_ID)) {
-      currentParent.refresh();
-
-    } else {
-      currentParent.refresh();
-      itemsPresenter.presentResources(currentParent);
-    }
-  }
-
-  /**
-   * Helper method to iterate and commit the <Code> checkinFolder</Code> using
-   * the recursion till the child has new children. Shows the input dialog while
-   * the user did not canceled or entered a message. Then commit the check in if
-   * we had a positive result.
-   * 
-   * @param resource
-   * @see com.oxygenxml.cmis.core.model.model.impl.FolderImpl
-   * @see com.oxygenxml.cmis.core.model.model.impl.DocumentImpl
-   */
-  private void checkinFolder(IResource resource, String commitMessage, boolean majorCheckin, int result) {
-
-    // Get all the children of the item in an iterator
-    Iterator<IResource> childrenIterator = resource.iterator();
-
-    // Check if there are no children
-    if (childrenIterator != null) {
-
-      // While has a child, add to the model
-      while (childrenIterator.hasNext()) {
-
-        // Get the next child
-        IResource iResource = childrenIterator.next();
-
-        // Check if it an instance of custom interface Folder
-        if (iResource instanceof FolderImpl) {
-
-          // Call the checkinFolder again recursively
-          checkinFolder(iResource, commitMessage, majorCheckin, result);
-
-        } else if (iResource instanceof DocumentImpl) {
-          // If it's a document try <Code>checkIn</Code>
-          // Only if the action was not canceled
-
-          DocumentImpl doc = (DocumentImpl) iResource;
-          if (result != 0 && doc.isCheckedOut() && !doc.isPrivateWorkingCopy()) {
-            // Try to <Code>checkIn</Code>
-            commitCheckIn(resource, commitMessage, doc, majorCheckin);
-          }
-
-        }
-      }
+      final boolean majorCheckin = versioningState.equals(VERSIONING_STATE_MAJOR);
+      final String message = commitMessage;
+
+      new ParallelOperationWorker<IResource>(TranslationResourceController.getMessage("CHECKING_IN_FOLDER"),
+          operation -> checkinFolder(operation, message, majorCheckin), IResource::getDisplayName, () -> {
+            if (currentParent.getId().equals(SEARCH_RESULTS_ID)) {
+              currentParent.refresh();
+
+            } else {
+              currentParent.refresh();
+              itemsPresenter.presentResources(currentParent);
+            }
+          }).execute();
     }
   }
 
   /**
-   * Commits the actual check-in by getting the PWC of the document. Removes the
-   * old model and add the new one.
+   * Submits for check-in the documents of the folder tree checked out by the
+   * user. They are found with a query. If the repository can't run it, the tree
+   * is walked instead.
    * 
-   * @param resource
+   * @param operation
+   *          The operation that checks in the documents.
    * @param commitMessage
-   * @param pwcDoc
-   * @param doc
+   *          The check-in comment.
    * @param majorCheckin
+   *          <code>true</code> for major versions.
    */
-  private void commitCheckIn(IResource resource, String commitMessage, DocumentImpl doc, boolean majorCheckin) {
-    ObjectId res;
-
+  private void checkinFolder(ParallelOperation<IResource> operation, String commitMessage, boolean majorCheckin) {
+    ParallelOperation.Task<IResource> checkin = doc -> commitCheckIn((DocumentImpl) doc, commitMessage,
+        majorCheckin);
     try {
-      String pwcId = doc.getVersionSeriesCheckedOutId();
-
-      DocumentImpl pwcDoc = null;
-      if (pwcId != null) {
-
-        // Get the pwc
-        Document pwc = (Document) resourceController.getSession().getObject(pwcId);
-        pwcDoc = new DocumentImpl(pwc);
-
-      }
-
-      if (pwcDoc != null) {
-        // Commit the <Code>checkIn</Code> and Get the ObjectId
-        res = pwcDoc.checkIn(majorCheckin, commitMessage);
-
-        // If we are in the search
-        if (currentParent.getId().equals(SEARCH_RESULTS_ID)) {
-
-          // Remove from model current resource
-          ((IFolder) currentParent).removeFromModel(resource);
-
-          // Add the new one to the model
-          Document checkedInResource = resourceController.getDocument(res.getId());
-          ((IFolder) currentParent).addToModel(checkedInResource);
-
-        } else {
-          currentParent.refresh();
-          itemsPresenter.presentResources(currentParent);
-
-        }
-      }
-
-    } catch (Exception ev) {
-
-      // Show the exception if there is one
-      logger.error("Exception action ", ev);
+      new SearchController(resourceController).queryDocumentsInTree(resource.getId(), true,
+          new SearchResultsHandler() {
+            @Override
+            public void resultsFound(List<IResource> resources) {
+              for (IResource doc : resources) {
+                operation.submit(doc, checkin);
+              }
+            }
+
+            @Override
+            public boolean isCanceled() {
+              return operation.isCanceled();
+            }
+          });
+    } catch (CmisInvalidArgumentException | CmisNotSupportedException ex) {
+      logger.debug("Unable to query the checked-out documents: " + ex.getMessage());
+      operation.submit(resource, folder -> walkFolder(operation, folder, checkin));
     }
-
   }
 
   /**
-   * Checks if a check in is possible for the folder and the document. Folder is
-   * iterated recursively.
+   * Submits the checked-out documents of a folder for check-in and its
+   * subfolders to be walked in their turn.
    * 
-   * @param resource
-   * @return
+   * @param operation
+   *          The operation that checks in the documents.
+   * @param folder
+   *          The folder.
+   * @param checkin
+   *          Checks in a document.
    */
-  private boolean checkCanCheckinFolder(IResource resource) {
-    boolean canCheckin = false;
-    // Get all the children of the item in an iterator
-    Iterator<IResource> childrenIterator = resource.iterator();
-
-    if (childrenIterator != null) {
-
-      // While has a child, add to the model
-      while (childrenIterator.hasNext() && !canCheckin) {
-
-        // Get the next child
-        IResource iResource = childrenIterator.next();
-
-        // Check if it's a custom type interface FolderImpl
-        if (iResource instanceof FolderImpl) {
-
-          // Call the helper method used for recursion
-          canCheckin = checkCanCheckinFolder(iResource);
-
-        } else if (iResource instanceof DocumentImpl) {
-          // If it is a document type of custom interface
-          try {
-
-            canCheckin = checkDocument(iResource);
+  private void walkFolder(ParallelOperation<IResource> operation, IResource folder,
+      ParallelOperation.Task<IResource> checkin) {
+    // All the pages are read before submitting, so that a retried listing
+    // submits nothing twice.
+    List<IResource> children = new ArrayList<>();
+    Iterator<IResource> childrenIterator = folder.iterator();
+    while (childrenIterator.hasNext() && !operation.isCanceled()) {
+      children.add(childrenIterator.next());
+    }
 
-          } catch (Exception ev) {
+    for (IResource child : children) {
+      if (child instanceof FolderImpl) {
+        operation.submit(child, subfolder -> walkFolder(operation, subfolder, checkin));
 
-            // Show the exception if there is one
-            logger.debug("Exception ", ev);
-          }
+      } else if (child instanceof DocumentImpl) {
+        DocumentImpl doc = (DocumentImpl) child;
+        if (doc.isCheckedOut() && !doc.isPrivateWorkingCopy()) {
+          operation.submit(doc, checkin);
         }
       }
     }
-    return canCheckin;
   }
 
   /**
-   * Checks if a the cancel checkout action is available for current user
+   * Commits the actual check-in of the PWC of the document, keeping its content.
+   * The PWC is not fetched.
    * 
-   * @param canCancel
-   * @param iResource
-   * @return
+   * @param doc
+   * @param commitMessage
+   * @param majorCheckin
    */
-  private boolean checkDocument(IResource iResource) {
-    DocumentImpl doc;
-    String pwcId;
-    boolean hasPwc;
-    boolean canUserCheckin;
-    Document pwc;
-    DocumentImpl pwcDoc;
-
-    boolean canCheckin = false;
-    // If it is a document type of custom interface
-    try {
-      doc = ((DocumentImpl) iResource);
-
-      // Check if it's a PWC
-      if (doc.isCheckedOut() && !doc.isPrivateWorkingCopy()) {
-
-        hasPwc = false;
-        canUserCheckin = false;
-
-        // Get the PWC id
-        pwcId = doc.getVersionSeriesCheckedOutId();
-
-        // If has a PWC id
-        if (pwcId != null) {
-          hasPwc = true;
-
-          // Get the pwc
-          pwc = (Document) resourceController.getSession().getObject(pwcId);
-          pwcDoc = new DocumentImpl(pwc);
-
-          // Allow cancelCheckout
-          canUserCheckin = pwcDoc.canUserCheckin();
-        }
-        canCheckin = canUserCheckin && hasPwc;
-
-      }
-
-    } catch (Exception ev) {
-
-      // Show the exception if there is one
-      logger.error("Exception check", ev);
+  private void commitCheckIn(DocumentImpl doc, String commitMessage, boolean majorCheckin) {
+    String pwcId = doc.getVersionSeriesCheckedOutId();
+    if (pwcId != null) {
+      resourceController.checkIn(pwcId, majorCheckin, commitMessage);
     }
-    return canCheckin;
   }
 }
@@ -1,12 +1,18 @@
 package com.oxygenxml.cmis.actions;
 
 import java.awt.event.ActionEvent;
+import java.util.ArrayList;
 import java.util.Iterator;
+import java.util.List;
 
 import javax.swing.AbstractAction;
 
+import org.apache.chemistry.opencmis.commons.SessionParameter;
+import org.apache.chemistry.opencmis.commons.exceptions.CmisVersioningException;
 import org.apache.log4j.Logger;
 
+import com.oxygenxml.cmis.core.CMISAccess;
+import com.oxygenxml.cmis.core.ParallelOperation;
 import com.oxygenxml.cmis.core.model.IResource;
 import com.oxygenxml.cmis.core.model.impl.DocumentImpl;
 import com.oxygenxml.cmis.core.model.impl.FolderImpl;
@@ -44,168 +50,112 @@ public class CheckoutFolderAction extends AbstractAction {
    * @see com.oxygenxml.cmis.core.model.IResource
    */
   public CheckoutFolderAction(IResource resource, IResource currentParent, ResourcesBrowser itemsPresenter) {
-    super(TranslationResourceController.getMessage("CHECK_OUT_FOLDER_ACTION_TITLE"));
+    this(resource, currentParent, itemsPresenter, new FolderCheckoutState(resource));
+  }
 
-    // Set logger level
+  /**
+   * Constructor that receives the resource to process. The action is enabled
+   * once the folder state tells there is something to check out.
+   * 
+   * @param resource
+   * @param currentParent
+   * @param itemsPresenter
+   * @param state
+   *          The check-out state of the folder, shared by the menu actions.
+   */
+  public CheckoutFolderAction(IResource resource, IResource currentParent, ResourcesBrowser itemsPresenter,
+      FolderCheckoutState state) {
+    super(TranslationResourceController.getMessage("CHECK_OUT_FOLDER_ACTION_TITLE"));
 
     this.resource = resource;
     this.currentParent = currentParent;
     this.itemsPresenter = itemsPresenter;
 
-    setEnabled(checkCanCheckoutFolder(resource));
+    setEnabled(false);
+    state.whenCanCheckOut(this::setEnabled);
   }
 
   /**
    * When the event was triggered cast the resource to custom interface for
-   * processing the folder using the recursion.
+   * processing the folder.
    * 
-   * <Code>checkoutFolder</Code> will be called whenever a folder child folder
-   * will be encountered, otherwise the checkout will precede
+   * The tree is walked in the background, the folders being listed and the
+   * documents checked out in parallel. A dialog shows the progress and allows
+   * canceling.
    * 
    * @param e
-   * @exception org.apache.chemistry.opencmis.commons.exceptions.CmisBaseException
    * 
    * @see com.oxygenxml.cmis.core.model.model.impl.FolderImpl
    * @see com.oxygenxml.cmis.core.model.model.impl.DocumentImpl
    */
   @Override
   public void actionPerformed(ActionEvent e) {
-
-    checkoutFolder(resource);
-    if (currentParent.getId().equals(SEARCH_RESULTS_ID)) {
-      currentParent.refresh();
-
-    } else {
-      currentParent.refresh();
-      itemsPresenter.presentResources(currentParent);
-    }
+    new ParallelOperationWorker<IResource>(TranslationResourceController.getMessage("CHECKING_OUT_FOLDER"),
+        operation -> operation.submit(resource, item -> checkoutFolder(operation, item)), IResource::getDisplayName,
+        () -> {
+          if (currentParent.getId().equals(SEARCH_RESULTS_ID)) {
+            currentParent.refresh();
+
+          } else {
+            currentParent.refresh();
+            itemsPresenter.presentResources(currentParent);
+          }
+        }).execute();
   }
 
   /**
-   * Helper method to iterate and commit the <Code> checkoutFolder</Code> using
-   * the recursion till the child has new children
+   * Checks out a document or submits the children of a folder to be processed
+   * in their turn.
    * 
+   * @param operation
+   *          The operation processing the tree.
    * @param resource
+   *          A folder or a document.
    * @see com.oxygenxml.cmis.core.model.model.impl.FolderImpl
    * @see com.oxygenxml.cmis.core.model.model.impl.DocumentImpl
    */
-  private void checkoutFolder(IResource resource) {
-
-    // Get all the children of the item in an iterator
-    Iterator<IResource> childrenIterator = resource.iterator();
-
-    // If has children
-    if (childrenIterator != null) {
-
-      // While has a child, add to the model
-      while (childrenIterator.hasNext()) {
-
-        // Get the child
-        IResource iResource = childrenIterator.next();
-
-        // Check if it's an instance of custom interface Folder
-        if (iResource instanceof FolderImpl) {
-          // Call recursively if it's a folder
-          checkoutFolder(iResource);
-
-        } else if (iResource instanceof DocumentImpl) {
-
-          commitCheckout(iResource);
-        }
+  private void checkoutFolder(ParallelOperation<IResource> operation, IResource resource) {
+    if (resource instanceof FolderImpl) {
+      // Get all the children of the item in an iterator
+      Iterator<IResource> childrenIterator = resource.iterator();
+
+      // All the pages are read before submitting, so that a retried listing
+      // submits nothing twice.
+      List<IResource> children = new ArrayList<>();
+      while (childrenIterator.hasNext() && !operation.isCanceled()) {
+        children.add(childrenIterator.next());
       }
-    }
-  }
-
-  /**
-   * Commit the checkout
-   * 
-   * @param iResource
-   */
-  private void commitCheckout(IResource iResource) {
-    try {
-      // Commit the checkOut
-      DocumentImpl doc = (DocumentImpl) iResource;
 
-      if (!(doc.isCheckedOut() || doc.isPrivateWorkingCopy())) {
-        doc.checkOut(doc.getDocType());
+      // Each child is processed by the next free worker.
+      for (IResource child : children) {
+        operation.submit(child, item -> checkoutFolder(operation, item));
       }
-    } catch (Exception ev) {
 
-      // SHow the exception if there is one
-      logger.debug("Exception ", ev);
+    } else if (resource instanceof DocumentImpl) {
+      commitCheckout((DocumentImpl) resource);
     }
   }
 
   /**
-   * Check if a check out can be applied
+   * Commit the checkout. The private working copy is not fetched.
    * 
-   * @param resource
-   * @return
-   */
-  private boolean checkCanCheckoutFolder(IResource resource) {
-    boolean canCheckout = false;
-    // Get all the children of the item in an iterator
-    Iterator<IResource> childrenIterator = resource.iterator();
-
-    if (childrenIterator != null) {
-
-      // While has a child, add to the model
-      while (childrenIterator.hasNext() && !canCheckout) {
-
-        // Get the next child
-        IResource iResource = childrenIterator.next();
-
-        // Check if it's a custom type interface FolderImpl
-        if (iResource instanceof FolderImpl) {
-
-          // Call the helper method used for recursion
-          canCheckout = checkCanCheckoutFolder(iResource);
-
-        } else if (iResource instanceof DocumentImpl) {
-          // If it is a document type of custom interface
-          try {
-            canCheckout = checkDocument(iResource);
-
-          } catch (Exception ev) {
-
-            // Show the exception if there is one
-            logger.error("Exception check", ev);
-          }
-        }
-      }
-    }
-    return canCheckout;
-  }
-
-  /**
-   * Checks if a the checkout action is available for current user
+   * A check-out retried after the server applied it but the response was lost
+   * is rejected, the document being checked out already. If it is checked out
+   * by the current user, the check-out is done.
    * 
-   * @param canCancel
-   * @param iResource
-   * @return
+   * @param doc
    */
-  private boolean checkDocument(IResource iResource) {
-    DocumentImpl doc;
-    boolean canUserCheckout = false;
-
-    // If it is a document type of custom interface
-    try {
-      doc = ((DocumentImpl) iResource);
-
-      // Check if it's not checkout out
-      if (!(doc.isCheckedOut() || doc.isPrivateWorkingCopy())) {
-
-        // Allow cancelCheckout
-        canUserCheckout = doc.canUserCheckout();
+  private void commitCheckout(DocumentImpl doc) {
+    if (!(doc.isCheckedOut() || doc.isPrivateWorkingCopy())) {
+      try {
+        doc.checkOutAndGetId(doc.getDocType());
+      } catch (CmisVersioningException e) {
+        doc.refresh();
+        String user = CMISAccess.getInstance().getSession().getSessionParameters().get(SessionParameter.USER);
+        if (!doc.isCheckedOut() || user == null || !user.equals(doc.getDoc().getVersionSeriesCheckedOutBy())) {
+          throw e;
+        }
       }
-
-    } catch (
-
-    Exception ev) {
-
-      // Show the exception if there is one
-      logger.error("Exception check", ev);
     }
-    return canUserCheckout;
   }
 }
@@ -1,33 +1,44 @@
 package com.oxygenxml.cmis.actions;
 
+import java.awt.Toolkit;
+import java.awt.datatransfer.StringSelection;
 import java.awt.event.ActionEvent;
 
 import javax.swing.AbstractAction;
 
 import com.oxygenxml.cmis.core.model.IResource;
-
+import com.oxygenxml.cmis.plugin.TranslationResourceController;
+
+/**
+ * Describes the copy action on a folder by extending the AbstractAction class.
+ * The folder is pasted with {@link PasteDocumentAction}, its whole tree being
+ * copied.
+ * 
+ * @author bluecc
+ *
+ */
 public class CopyFolderAction extends AbstractAction {
-  private IResource resource = null;
+  // The folder to copy
+  private transient IResource resource = null;
 
-  /*
-   * TODO COPY EVERYTHING TO CLIPBOARD DOES NOT WORK ANYTHING JUST TO EXIST
+  /**
+   * Constructor that receives the folder to copy
+   * 
+   * @param resource
    */
   public CopyFolderAction(IResource resource) {
-    super("Copy");
+    super(TranslationResourceController.getMessage("COPY_DOCUMENT_ACTION_TITLE"));
 
     this.resource = resource;
   }
 
+  /**
+   * Puts the ID of the folder in the system clipboard, like for the documents.
+   * 
+   * @param e
+   */
   @Override
   public void actionPerformed(ActionEvent e) {
-
-    //
-    // FolderImpl folder = ((FolderImpl) resource);
-    //
-    // try {
-    // CMISAccess.getInstance().createResourceController().deleteFolderTree(folder.getFolder());
-    // } catch (Exception ev) {
-    // JOptionPane.showMessageDialog(null, "Exception " + ev.getMessage());
-    // }
+    Toolkit.getDefaultToolkit().getSystemClipboard().setContents(new StringSelection(resource.getId()), null);
   }
 }
@@ -148,6 +148,9 @@ public class CreateDocumentAction extends AbstractAction {
       } catch (org.apache.chemistry.opencmis.commons.exceptions.CmisContentAlreadyExistsException e2) {
         // Show the exception if there is one
         JOptionPane.showMessageDialog(mainFrame, documentAlreadyExistsException + e2.getMessage());
+      } catch (org.apache.chemistry.opencmis.commons.exceptions.CmisBaseException e3) {
+        // Show the exception if there is one
+        JOptionPane.showMessageDialog(mainFrame, unknownException + e3.getMessage());
       }
 
     }
@@ -1,20 +1,20 @@
 package com.oxygenxml.cmis.actions;
 
 import java.awt.event.ActionEvent;
+import java.util.List;
 
 import javax.swing.AbstractAction;
-import javax.swing.JFrame;
-import javax.swing.JOptionPane;
+
+import org.apache.chemistry.opencmis.client.api.CmisObject;
+import org.apache.log4j.Logger;
 
 import com.oxygenxml.cmis.core.CMISAccess;
+import com.oxygenxml.cmis.core.ResourceController;
 import com.oxygenxml.cmis.core.model.IResource;
 import com.oxygenxml.cmis.core.model.impl.FolderImpl;
 import com.oxygenxml.cmis.plugin.TranslationResourceController;
 import com.oxygenxml.cmis.ui.ResourcesBrowser;
 
-import ro.sync.exml.workspace.api.PluginWorkspace;
-import ro.sync.exml.workspace.api.PluginWorkspaceProvider;
-
 /**
  * Describes the delete folder action on a document by extending the
  * AbstractAction class
@@ -23,8 +23,10 @@ import ro.sync.exml.workspace.api.PluginWorkspaceProvider;
  *
  */
 public class DeleteFolderAction extends AbstractAction {
-
-  private final String unknownException;
+  /**
+   * Logging.
+   */
+  private static final Logger logger = Logger.getLogger(DeleteFolderAction.class);
 
   // Internal role
   private static final String SEARCH_RESULTS_ID = "#search.results";
@@ -46,7 +48,6 @@ public class DeleteFolderAction extends AbstractAction {
   public DeleteFolderAction(IResource resource, IResource currentParent, ResourcesBrowser itemsPresenter) {
     // Set a name
     super(TranslationResourceController.getMessage("DELETE_FOLDER_ACTION_TITLE"));
-    unknownException = TranslationResourceController.getMessage("UNKNOWN_EXCEPTION");
 
     this.resource = resource;
     this.currentParent = currentParent;
@@ -58,7 +59,8 @@ public class DeleteFolderAction extends AbstractAction {
    * processing the folder.
    * 
    * <b>This action will delete everything inside the folder (folders,
-   * documents)</b>
+   * documents)</b>. The deletion runs in the background, with a progress
+   * dialog.
    * 
    * @param e
    * 
@@ -66,15 +68,22 @@ public class DeleteFolderAction extends AbstractAction {
    */
   @Override
   public void actionPerformed(ActionEvent e) {
-    final PluginWorkspace pluginWorkspace = PluginWorkspaceProvider.getPluginWorkspace();
-    JFrame mainFrame = (JFrame) pluginWorkspace.getParentFrame();
     // Cast to the custom interface to use it's methods
     FolderImpl folderToDelete = ((FolderImpl) resource);
-
-    // Try deleting the folder
-    try {
-      CMISAccess.getInstance().createResourceController().deleteFolderTree(folderToDelete.getFolder());
-
+    ResourceController resourceController = CMISAccess.getInstance().createResourceController();
+
+    new ParallelOperationWorker<CmisObject>(TranslationResourceController.getMessage("DELETING_FOLDER"), operation -> {
+      try {
+        // What is left is reported as failures of the operation and listed
+        // in the error dialog at the end.
+        List<String> undeleted = resourceController.deleteFolderTree(folderToDelete.getFolder(), operation);
+        if (!undeleted.isEmpty()) {
+          logger.debug("Objects not deleted: " + undeleted);
+        }
+      } catch (InterruptedException ex) {
+        Thread.currentThread().interrupt();
+      }
+    }, CmisObject::getName, () -> {
       // Present the newly updated content of the parent folder
       if (currentParent.getId().equals(SEARCH_RESULTS_ID)) {
         currentParent.refresh();
@@ -83,12 +92,6 @@ public class DeleteFolderAction extends AbstractAction {
         currentParent.refresh();
         itemsPresenter.presentResources(currentParent);
       }
-
-    } catch (Exception ev) {
-
-      // Show the exception if there is one
-      JOptionPane.showMessageDialog(mainFrame, unknownException + ev.getMessage());
-    }
-
+    }).execute();
   }
 }
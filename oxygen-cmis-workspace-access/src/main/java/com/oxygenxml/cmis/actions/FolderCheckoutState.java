@@ -0,0 +1,147 @@
+package com.oxygenxml.cmis.actions;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Consumer;
+
+import javax.swing.SwingWorker;
+
+import org.apache.chemistry.opencmis.commons.exceptions.CmisInvalidArgumentException;
+import org.apache.chemistry.opencmis.commons.exceptions.CmisNotSupportedException;
+import org.apache.log4j.Logger;
+
+import com.oxygenxml.cmis.core.CMISAccess;
+import com.oxygenxml.cmis.core.SearchController;
+import com.oxygenxml.cmis.core.model.IResource;
+
+/**
+ * Tells if the documents in a folder tree can be checked out or checked in.
+ * Each answer comes from one query, run in the background the first time it is
+ * asked for. Created for one contextual menu and shared by its folder actions.
+ *
+ * All the methods must be called on the AWT thread.
+ */
+public class FolderCheckoutState {
+  /**
+   * Logging.
+   */
+  private static final Logger logger = Logger.getLogger(FolderCheckoutState.class);
+
+  /**
+   * The folder.
+   */
+  private final IResource folder;
+
+  /**
+   * Is there a document that the user can check out?
+   */
+  private final Answer canCheckOut = new Answer(false);
+
+  /**
+   * Is there a document checked out by the user?
+   */
+  private final Answer hasCheckedOut = new Answer(true);
+
+  /**
+   * Constructor.
+   *
+   * @param folder
+   *          The folder.
+   */
+  public FolderCheckoutState(IResource folder) {
+    this.folder = folder;
+  }
+
+  /**
+   * @param callback
+   *          Receives <code>true</code> if a document in the tree can be
+   *          checked out.
+   */
+  void whenCanCheckOut(Consumer<Boolean> callback) {
+    canCheckOut.whenReady(callback);
+  }
+
+  /**
+   * @param callback
+   *          Receives <code>true</code> if a document in the tree is checked
+   *          out by the user, so it can be checked in or its check-out
+   *          canceled.
+   */
+  void whenHasCheckedOut(Consumer<Boolean> callback) {
+    hasCheckedOut.whenReady(callback);
+  }
+
+  /**
+   * An answer computed once, in the background.
+   */
+  private class Answer {
+    /**
+     * The check-out state of the documents looked for.
+     */
+    private final boolean checkedOut;
+    /**
+     * The answer, <code>null</code> until computed.
+     */
+    private Boolean value;
+    /**
+     * Waiting for the answer.
+     */
+    private final List<Consumer<Boolean>> callbacks = new ArrayList<>();
+    /**
+     * <code>true</code> after the query was started.
+     */
+    private boolean started;
+
+    Answer(boolean checkedOut) {
+      this.checkedOut = checkedOut;
+    }
+
+    void whenReady(Consumer<Boolean> callback) {
+      if (value != null) {
+        callback.accept(value);
+      } else {
+        callbacks.add(callback);
+        if (!started) {
+          started = true;
+          compute();
+        }
+      }
+    }
+
+    private void compute() {
+      new SwingWorker<Boolean, Void>() {
+        @Override
+        protected Boolean doInBackground() {
+          SearchController searchCtrl = new SearchController(CMISAccess.getInstance().createResourceController());
+          try {
+            return searchCtrl.hasDocumentInTree(folder.getId(), checkedOut,
+                doc -> checkedOut || doc.canUserCheckout());
+          } catch (CmisInvalidArgumentException | CmisNotSupportedException e) {
+            // The action tells if there is nothing to do.
+            logger.debug("Unable to query the check-out state: " + e.getMessage());
+            return true;
+          }
+        }
+
+        @Override
+        protected void done() {
+          try {
+            value = get();
+          } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            value = true;
+          } catch (ExecutionException e) {
+            logger.debug("Unable to query the check-out state", e.getCause());
+            value = true;
+          }
+
+          for (Consumer<Boolean> callback : callbacks) {
+            callback.accept(value);
+          }
+          callbacks.clear();
+        }
+      }.execute();
+    }
+  }
+}
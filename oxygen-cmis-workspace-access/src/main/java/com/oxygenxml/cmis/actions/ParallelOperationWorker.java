@@ -0,0 +1,158 @@
+package com.oxygenxml.cmis.actions;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+import javax.swing.JFrame;
+import javax.swing.JOptionPane;
+import javax.swing.ProgressMonitor;
+import javax.swing.SwingUtilities;
+import javax.swing.SwingWorker;
+
+import org.apache.log4j.Logger;
+
+import com.oxygenxml.cmis.core.ParallelOperation;
+import com.oxygenxml.cmis.core.ParallelOperation.Failure;
+import com.oxygenxml.cmis.plugin.TranslationResourceController;
+
+import ro.sync.exml.workspace.api.PluginWorkspace;
+import ro.sync.exml.workspace.api.PluginWorkspaceProvider;
+
+/**
+ * Runs an operation on many resources in the background. The progress is shown
+ * in a dialog that allows canceling the operation and the items that failed
+ * are listed at the end.
+ *
+ * @param <T>
+ *          The type of the items.
+ */
+class ParallelOperationWorker<T> extends SwingWorker<List<Failure<T>>, Void> {
+  /**
+   * Logging.
+   */
+  private static final Logger logger = Logger.getLogger(ParallelOperationWorker.class);
+
+  /**
+   * Number of items processed at the same time. Can be changed with a system
+   * property.
+   */
+  private static final int CONCURRENCY = Integer.getInteger("cmis.parallel.operations",
+      ParallelOperation.DEFAULT_CONCURRENCY);
+
+  /**
+   * Maximum number of failed items listed in the summary.
+   */
+  private static final int MAX_LISTED_FAILURES = 20;
+
+  private final ParallelOperation<T> operation;
+  private final ProgressMonitor monitor;
+  private final Consumer<ParallelOperation<T>> starter;
+  private final Function<T, String> describer;
+  private final Runnable finished;
+
+  /**
+   * <code>true</code> while a progress update waits for the AWT thread.
+   */
+  private final AtomicBoolean updateScheduled = new AtomicBoolean();
+  private volatile int completed;
+  private volatile int submitted;
+
+  /**
+   * Constructor.
+   *
+   * @param title
+   *          Describes the operation in the progress dialog.
+   * @param starter
+   *          Submits the first items, on the background thread.
+   * @param describer
+   *          Presents an item in the list of failures.
+   * @param finished
+   *          Called on the AWT thread at the end, even if canceled.
+   */
+  ParallelOperationWorker(String title, Consumer<ParallelOperation<T>> starter, Function<T, String> describer,
+      Runnable finished) {
+    this.starter = starter;
+    this.describer = describer;
+    this.finished = finished;
+    this.operation = new ParallelOperation<>(CONCURRENCY, ParallelOperation.DEFAULT_ATTEMPTS, this::progressChanged);
+    this.monitor = new ProgressMonitor(getParentFrame(), title, null, 0, 1);
+  }
+
+  @Override
+  protected List<Failure<T>> doInBackground() throws Exception {
+    starter.accept(operation);
+    return operation.await();
+  }
+
+  /**
+   * Called from the worker threads. The updates are coalesced, so that the AWT
+   * thread receives at most one at a time.
+   */
+  private void progressChanged(int completed, int submitted) {
+    this.completed = completed;
+    this.submitted = submitted;
+
+    if (updateScheduled.compareAndSet(false, true)) {
+      SwingUtilities.invokeLater(() -> {
+        updateScheduled.set(false);
+        monitor.setMaximum(this.submitted);
+        monitor.setProgress(this.completed);
+        if (monitor.isCanceled()) {
+          operation.cancel();
+        }
+      });
+    }
+  }
+
+  @Override
+  protected void done() {
+    monitor.close();
+
+    List<Failure<T>> failures = Collections.emptyList();
+    try {
+      failures = get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    } catch (ExecutionException e) {
+      logger.error("Operation failed", e.getCause());
+      JOptionPane.showMessageDialog(getParentFrame(),
+          TranslationResourceController.getMessage("UNKNOWN_EXCEPTION") + e.getCause().getMessage());
+    }
+
+    if (!failures.isEmpty()) {
+      JOptionPane.showMessageDialog(getParentFrame(), summarize(failures), null, JOptionPane.ERROR_MESSAGE);
+    }
+
+    finished.run();
+  }
+
+  /**
+   * @param failures
+   *          The items that failed.
+   *
+   * @return A message listing the failed items and why they failed.
+   */
+  private String summarize(List<Failure<T>> failures) {
+    StringBuilder message = new StringBuilder(TranslationResourceController.getMessage("ITEMS_NOT_PROCESSED"));
+    int listed = Math.min(failures.size(), MAX_LISTED_FAILURES);
+    for (int i = 0; i < listed; i++) {
+      Failure<T> failure = failures.get(i);
+      message.append('\n').append(describer.apply(failure.getItem())).append(": ")
+          .append(failure.getError().getMessage());
+    }
+    if (failures.size() > listed) {
+      message.append("\n... (").append(failures.size() - listed).append(')');
+    }
+
+    return message.toString();
+  }
+
+  private static JFrame getParentFrame() {
+    PluginWorkspace pluginWorkspace = PluginWorkspaceProvider.getPluginWorkspace();
+    return pluginWorkspace != null ? (JFrame) pluginWorkspace.getParentFrame() : null;
+  }
+}
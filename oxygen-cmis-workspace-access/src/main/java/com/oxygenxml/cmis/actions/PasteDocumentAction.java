@@ -5,15 +5,14 @@ import java.awt.datatransfer.Clipboard;
 import java.awt.datatransfer.DataFlavor;
 import java.awt.datatransfer.Transferable;
 import java.awt.event.ActionEvent;
-import java.net.MalformedURLException;
 
 import javax.swing.AbstractAction;
 import javax.swing.JFrame;
 import javax.swing.JOptionPane;
 
+import org.apache.chemistry.opencmis.client.api.CmisObject;
 import org.apache.chemistry.opencmis.client.api.Document;
-import org.apache.chemistry.opencmis.commons.data.ContentStream;
-import org.apache.chemistry.opencmis.commons.enums.VersioningState;
+import org.apache.chemistry.opencmis.client.api.Folder;
 
 import com.oxygenxml.cmis.core.CMISAccess;
 import com.oxygenxml.cmis.core.ResourceController;
@@ -35,8 +34,7 @@ import ro.sync.exml.workspace.api.PluginWorkspaceProvider;
 public class PasteDocumentAction extends AbstractAction {
   private static String unknownException;
   // Internal role
-  private static final String DEFAULT_VERSIONING_STATE = "MAJOR";
-  private static final String VERSIONING_STATE_NONE = "NONE";
+  private static final String SEARCH_RESULTS_ID = "#search.results";
   private static transient PluginWorkspace pluginWorkspace = PluginWorkspaceProvider.getPluginWorkspace();
   private static JFrame mainFrame = (JFrame) pluginWorkspace.getParentFrame();
   private final transient ResourceController resourceController;
@@ -117,54 +115,45 @@ public class PasteDocumentAction extends AbstractAction {
    * When the event was triggered cast the resource to custom interface for
    * processing the clipboard.
    * 
-   * <b>This action will delete everything inside the folder (folders,
-   * documents)</b>
+   * The clipboard holds the ID of a document or of a folder. The copy runs in
+   * the background, a folder tree being copied in parallel.
    * 
    * @param e
-   * @exception MalformedURLException
-   *              , UnsupportedEncodingException
-   * 
    * 
    * @see com.oxygenxml.cmis.core.model.model.impl.DocumentImpl
    */
   @Override
   public void actionPerformed(ActionEvent e) {
+    String copiedId = getSysClipboardText();
 
     // Checks if there is something in the clipboard
-    if (getSysClipboardText() != null) {
+    if (copiedId != null) {
+      Folder target = ((FolderImpl) resource).getFolder();
 
-      // Try to get the document
-      try {
-        // Get the document
-        Document docClipboard = resourceController.getDocument(getSysClipboardText());
+      new ParallelOperationWorker<CmisObject>(TranslationResourceController.getMessage("PASTING"), operation -> {
+        CmisObject copied = resourceController.getCmisObj(copiedId.trim());
 
-        String fileName = docClipboard.getName();
-        ContentStream content = docClipboard.getContentStream();
-        String mimetype = docClipboard.getContentStreamMimeType();
-        String objectTypeId = docClipboard.getType().getId();
-        String versioningState = DEFAULT_VERSIONING_STATE;
-        FolderImpl folder = ((FolderImpl) resource);
-        Document copiedDoc = null;
+        if (copied instanceof Folder) {
+          try {
+            resourceController.copyFolderTree((Folder) copied, target, operation);
+          } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+          }
 
-        if (mimetype.equals(VERSIONING_STATE_NONE)) {
-          copiedDoc = resourceController.createDocument(folder.getFolder(), fileName, content.toString(), mimetype);
+        } else if (copied instanceof Document) {
+          operation.submit(copied, doc -> resourceController.copyDocument((Document) doc, target));
+        }
+      }, CmisObject::getName, () -> {
+        // Present the new content of the current parent
+        if (currentParent.getId().equals(SEARCH_RESULTS_ID)) {
+          currentParent.refresh();
 
         } else {
-          copiedDoc = resourceController.createVersionedDocument(folder.getFolder(), fileName, content, objectTypeId,
-              VersioningState.valueOf(versioningState));
+          currentParent.refresh();
+          itemsPresenter.presentResources(currentParent);
         }
-        // // Add the document from clipboard to the currentFolder
-        resourceController.addToFolder(((FolderImpl) resource).getFolder(), copiedDoc);
-
-        // Presenter the new content of the current parent
-        itemsPresenter.presentResources(currentParent.getId());
-
-      } catch (Exception ev) {
-
-        // Show the exception if there is one
-        JOptionPane.showMessageDialog(null, unknownException + ev.getMessage());
-      }
+      }).execute();
     }
   }
 
-}
\ No newline at end of file
+}
@@ -1,13 +1,10 @@
 package com.oxygenxml.cmis.search;
 
-import java.util.ArrayList;
-import java.util.List;
-
 import com.oxygenxml.cmis.actions.ShowAllResourcesAction;
 import com.oxygenxml.cmis.actions.ShowCheckedoutResourcesAction;
 import com.oxygenxml.cmis.actions.ShowForeignCheckoutResourcesAction;
 import com.oxygenxml.cmis.core.SearchController;
-import com.oxygenxml.cmis.core.model.IResource;
+import com.oxygenxml.cmis.core.SearchResultsHandler;
 
 /**
  * @see com.oxygenxml.core.model.impl
@@ -17,37 +14,36 @@ import com.oxygenxml.cmis.core.model.IResource;
  */
 public class SearchDocument {
 
-  private final ArrayList<IResource> resultsQueries;
-
   /**
-   * Search constructor for searching for different options (default null)
+   * Search constructor for searching for different options (default null). The
+   * results are sent to the handler as they arrive from the server.
    * 
    * @param toSearch
    * @param searchCtrl
-   * @param options
+   * @param option
+   * @param handler
+   *          Receives the results.
    */
-  public SearchDocument(String toSearch, SearchController searchCtrl, String option) {
-
-    this.resultsQueries = new ArrayList<>();
+  public SearchDocument(String toSearch, SearchController searchCtrl, String option, SearchResultsHandler handler) {
 
     switch (option) {
 
     case ShowAllResourcesAction.ALL_OPTION:
 
-      resultsQueries.addAll(searchCtrl.queryDoc(toSearch));
+      searchCtrl.queryDoc(toSearch, handler);
       break;
 
     case ShowCheckedoutResourcesAction.PERSONAL_CHECKEDOUT_OPTION:
 
-      resultsQueries.addAll(searchCtrl.queryPersonalCheckedout(toSearch));
+      searchCtrl.queryPersonalCheckedout(toSearch, handler);
       break;
     case ShowForeignCheckoutResourcesAction.FOREIGN_OPTION:
 
-      resultsQueries.addAll(searchCtrl.queryForeignCheckedoutDocs(toSearch));
+      searchCtrl.queryForeignCheckedoutDocs(toSearch, handler);
       break;
 
     case "name":
-      resultsQueries.addAll(searchCtrl.queryDocName(toSearch));
+      searchCtrl.queryDocName(toSearch, handler);
       break;
 
     default:
@@ -55,12 +51,4 @@ public class SearchDocument {
     }
 
   }
-
-  /**
-   * 
-   * @return All the documents from the search.
-   */
-  public List<IResource> getResultsFolder() {
-    return resultsQueries;
-  }
 }
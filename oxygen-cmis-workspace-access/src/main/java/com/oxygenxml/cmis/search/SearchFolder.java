@@ -1,10 +1,7 @@
 package com.oxygenxml.cmis.search;
 
-import java.util.ArrayList;
-import java.util.List;
-
 import com.oxygenxml.cmis.core.SearchController;
-import com.oxygenxml.cmis.core.model.IResource;
+import com.oxygenxml.cmis.core.SearchResultsHandler;
 
 /**
  * @see com.oxygenxml.core.model.impl
@@ -13,29 +10,28 @@ import com.oxygenxml.cmis.core.model.IResource;
  */
 public class SearchFolder {
 
-  private final ArrayList<IResource> resultsQueries;
-
   /**
-   * Search constructor for searching for different options (default null).
+   * Search constructor for searching for different options (default null). The
+   * results are sent to the handler as they arrive from the server.
    * 
    * @param toSearch
    * @param searchCtrl
-   * @param options
+   * @param option
+   * @param handler
+   *          Receives the results.
    */
-  public SearchFolder(String toSearch, SearchController searchCtrl, String option) {
-
-    this.resultsQueries = new ArrayList<>();
+  public SearchFolder(String toSearch, SearchController searchCtrl, String option, SearchResultsHandler handler) {
 
     switch (option) {
 
     case "null":
 
-      resultsQueries.addAll(searchCtrl.queryFolder(toSearch));
+      searchCtrl.queryFolder(toSearch, handler);
 
       break;
 
     case "name":
-      resultsQueries.addAll(searchCtrl.queryFolderName(toSearch));
+      searchCtrl.queryFolderName(toSearch, handler);
       break;
 
     default:
@@ -43,12 +39,4 @@ public class SearchFolder {
     }
 
   }
-
-  /**
-   * 
-   * @return Returns all the folders from the search.
-   */
-  public List<IResource> getResultsFolder() {
-    return resultsQueries;
-  }
 }
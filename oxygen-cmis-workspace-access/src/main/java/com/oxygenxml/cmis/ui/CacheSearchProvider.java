@@ -1,15 +1,30 @@
 package com.oxygenxml.cmis.ui;
 
 import java.awt.Rectangle;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
-import java.util.Timer;
-import java.util.TimerTask;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.Supplier;
 
 import javax.swing.DefaultListModel;
 import javax.swing.JList;
 import javax.swing.SwingUtilities;
 
+import org.apache.log4j.Logger;
+
+import com.oxygenxml.cmis.core.CMISAccess;
 import com.oxygenxml.cmis.core.ResourceController;
+import com.oxygenxml.cmis.core.SearchController;
+import com.oxygenxml.cmis.core.cache.ExpiringCache;
 import com.oxygenxml.cmis.core.model.IResource;
 import com.oxygenxml.cmis.core.model.impl.DocumentImpl;
 import com.oxygenxml.cmis.core.model.impl.FolderImpl;
@@ -18,27 +33,73 @@ import com.oxygenxml.cmis.plugin.TranslationResourceController;
 /**
  * Class thats gets the line asynchronously and then repainting the component of
  * the JLlist
- * 
+ *
  * @author bluecc
  *
  */
 public class CacheSearchProvider implements ContentSearcher {
+  /**
+   * Logging.
+   */
+  private static final Logger logger = Logger.getLogger(CacheSearchProvider.class);
+
+  /**
+   * Number of threads loading the details of the search results.
+   */
+  private static final int WORKER_THREADS = 4;
+
+  /**
+   * Maximum number of values kept for each kind of detail.
+   */
+  private static final int MAX_CACHED_VALUES = 1000;
+
+  /**
+   * A value not shown for this long is dropped (10 minutes).
+   */
+  private static final long VALUE_IDLE_TIMEOUT = 10 * 60 * 1000L;
+
+  /**
+   * A value that failed to load is not requested again for this long (30
+   * seconds), however often its row is painted.
+   */
+  private static final long FAILURE_RETRY_DELAY = 30 * 1000L;
+
+  /**
+   * Loads the details for all the search views. The most recently requested
+   * details are loaded first, they belong to the rows the user looks at.
+   */
+  private static final ThreadPoolExecutor executor = new ThreadPoolExecutor(WORKER_THREADS, WORKER_THREADS, 0L,
+      TimeUnit.MILLISECONDS, new LinkedBlockingDeque<Runnable>() {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        public boolean offer(Runnable task) {
+          return offerFirst(task);
+        }
+      }, runnable -> {
+        Thread thread = new Thread(runnable, "CMIS search details");
+        thread.setDaemon(true);
+        return thread;
+      });
+
+  /**
+   * The provider of the search being presented. The loads requested by the
+   * others are dropped.
+   */
+  private static volatile CacheSearchProvider active;
 
   private final String timeCreated;
   private final String emptyResult;
   private final ContentSearcher searchProvider;
   private final JList<IResource> list;
 
-  private final HashMap<String, String> cacheLine;
-  private final HashMap<String, String> cachePath;
-  private final HashMap<String, String> cacheProperties;
-  private final HashMap<String, String> cacheName;
-
-  private final Timer timer = new Timer(false);
-
+  private final AsyncValues cacheLine = new AsyncValues();
+  private final AsyncValues cachePath = new AsyncValues();
+  
   /**
-   * Initialize the data
-   * 
+   * Initialize the data. The provider replaces the one of the previous search,
+   * whose queued loads are dropped.
+   *
    * @param searchProvider
    * @param list
    */
@@ -46,94 +107,39 @@ public class CacheSearchProvider implements ContentSearcher {
     timeCreated = TranslationResourceController.getMessage("TIME_CREATED");
     emptyResult = TranslationResourceController.getMessage("EMPTY_RESULT");
 
-    cacheLine = new HashMap<>();
-    cachePath = new HashMap<>();
-    cacheProperties = new HashMap<>();
-    cacheName = new HashMap<>();
     this.searchProvider = searchProvider;
     this.list = list;
 
+    active = this;
+    executor.getQueue().removeIf(task -> task instanceof LoadTask && !((LoadTask<?>) task).isActive());
   }
 
   @Override
   public String getLineDoc(IResource doc, String matchPattern) {
-    // Get the line found by ID
-    String lineDoc = cacheLine.get(doc.getId());
-
-    if (lineDoc == null && doc.getId() != null) {
-
-      TimerTask task = new TimerTask() {
-        @Override
-        public void run() {
-
-          if (doc != null && doc.getId() != null) {
-            // Get the line
-            String line = searchProvider.getLineDoc(doc, matchPattern);
-
-            // Put it in the hashmap or put 'Empty'
-            cacheLine.put(doc.getId(), line != null ? line : null);
-
-            // Repaint later the component
-            SwingUtilities.invokeLater(() -> {
-
-              int index = ((DefaultListModel<IResource>) list.getModel()).indexOf(doc);
-              Rectangle cellBounds = list.getCellBounds(index, index);
-
-              if (cellBounds != null) {
-                list.repaint(cellBounds);
-              }
-
-            });
-          }
-        }
-      };
-
-      timer.schedule(task, 0);
-    }
-
-    return lineDoc;
+    // A document without a matching line shows no line.
+    return cacheLine.get(doc, resource -> searchProvider.getLineDoc(resource, matchPattern));
   }
 
   @Override
   public String getPath(IResource resource, ResourceController ctrl) {
-    // Get the line found by ID
-    String pathDoc = cachePath.get(resource.getId());
-
-    if (pathDoc == null) {
-
-      TimerTask task = new TimerTask() {
-        @Override
-        public void run() {
-          // Get the line
-          String path = null;
-          if (resource instanceof DocumentImpl) {
-            path = ((DocumentImpl) resource).getDocumentPath(ctrl);
-
-          } else if (resource instanceof FolderImpl) {
-            path = ((FolderImpl) resource).getFolderPath();
-
-          }
-
-          // Put it in the hashmap or put 'Empty'
-          cachePath.put(resource.getId(), path != null ? path : emptyResult);
-
-          // Repaint later the component
-          SwingUtilities.invokeLater(() -> {
-            int index = ((DefaultListModel<IResource>) list.getModel()).indexOf(resource);
-            Rectangle cellBounds = list.getCellBounds(index, index);
-            if (cellBounds != null) {
-              list.repaint(cellBounds);
-            }
-          });
-
-        }
-      };
-
-      timer.schedule(task, 0);
+    String path = null;
+    if (resource instanceof DocumentImpl) {
+      // The paths of a whole page of results are requested by one background
+      // task, which still asks the server once for each document.
+      path = cachePath.get(resource, () -> documentsInPage(resource),
+          documents -> new SearchController(CMISAccess.getInstance().createBackgroundResourceController())
+              .getDocumentPaths(documents));
+
+    } else if (resource instanceof FolderImpl) {
+      // Selected by the search query.
+      path = ((FolderImpl) resource).getFolderPath();
+      if (path == null) {
+        path = emptyResult;
+      }
 
     }
 
-    return pathDoc;
+    return path;
   }
 
   @Override
@@ -148,85 +154,211 @@ public class CacheSearchProvider implements ContentSearcher {
 
   @Override
   public String getProperties(IResource resource) {
-    // Get the line found by ID
-    String propertiesToShow = cacheProperties.get(resource.getId());
+    // The properties are selected by the search query, no request is needed.
+    String properties = null;
+    if (resource instanceof DocumentImpl) {
+      DocumentImpl doc = (DocumentImpl) resource;
+      properties = doc.getModifiedBy();
 
-    if (propertiesToShow == null) {
+    } else if (resource instanceof FolderImpl) {
+      FolderImpl folder = (FolderImpl) resource;
+      properties = timeCreated + folder.getTimeCreated();
 
-      TimerTask task = new TimerTask() {
-        @Override
-        public void run() {
-
-          // Get the line
-          String properties = null;
-          if (resource instanceof DocumentImpl) {
-            DocumentImpl doc = (DocumentImpl) resource;
-            properties = doc.getModifiedBy();
-
-          } else if (resource instanceof FolderImpl) {
-            FolderImpl folder = (FolderImpl) resource;
-            properties = timeCreated + folder.getTimeCreated();
+    }
 
-          }
+    return properties != null ? properties : emptyResult;
+  }
 
-          // Put it in the hashmap or put 'Empty'
-          cacheProperties.put(resource.getId(), properties != null ? properties : emptyResult);
+  @Override
+  public String getName(IResource resource) {
+    String name = resource.getDisplayName();
+    return name != null ? name.replace(" (Working Copy)", "").trim() : emptyResult;
+  }
 
-          // Repaint later the component
-          SwingUtilities.invokeLater(() -> {
+  /**
+   * @param resource
+   *          A document in the results.
+   * 
+   * @return The documents in the same page of results.
+   */
+  private List<DocumentImpl> documentsInPage(IResource resource) {
+    DefaultListModel<IResource> model = (DefaultListModel<IResource>) list.getModel();
+    int index = model.indexOf(resource);
+    if (index == -1) {
+      return Collections.singletonList((DocumentImpl) resource);
+    }
 
-            int index = ((DefaultListModel<IResource>) list.getModel()).indexOf(resource);
-            Rectangle cellBounds = list.getCellBounds(index, index);
+    int start = index / SearchController.RESULTS_PAGE_SIZE * SearchController.RESULTS_PAGE_SIZE;
+    int end = Math.min(model.getSize(), start + SearchController.RESULTS_PAGE_SIZE);
+    List<DocumentImpl> documents = new ArrayList<>();
+    for (int i = start; i < end; i++) {
+      IResource row = model.getElementAt(i);
+      if (row instanceof DocumentImpl) {
+        documents.add((DocumentImpl) row);
+      }
+    }
 
-            if (cellBounds != null) {
-              list.repaint(cellBounds);
-            }
-          });
+    return documents;
+  }
 
+  /**
+   * Repaints the rows presenting some resources.
+   *
+   * @param resources
+   *          The resources.
+   */
+  private void repaint(List<? extends IResource> resources) {
+    SwingUtilities.invokeLater(() -> {
+      DefaultListModel<IResource> model = (DefaultListModel<IResource>) list.getModel();
+      for (IResource resource : resources) {
+        int index = model.indexOf(resource);
+        Rectangle cellBounds = list.getCellBounds(index, index);
+
+        if (cellBounds != null) {
+          list.repaint(cellBounds);
         }
-      };
-
-      timer.schedule(task, 0);
-    }
-    return propertiesToShow;
+      }
+    });
   }
 
-  @Override
-  public String getName(IResource resource) {
-    // Get the line found by ID
-
-    String id = resource.getId();
-
-    String name = cacheName.get(id);
+  /**
+   * One kind of detail, loaded in the background and cached by resource ID.
+   * Bounded in size and safe to use from the AWT thread and the workers.
+   */
+  private class AsyncValues {
+    /**
+     * The loaded values. Empty when there is no value for the resource.
+     */
+    private final ExpiringCache<String, Optional<String>> values = ExpiringCache
+        .expireAfterAccess(MAX_CACHED_VALUES, VALUE_IDLE_TIMEOUT);
+
+    /**
+     * IDs of the resources whose value failed to load recently.
+     */
+    private final ExpiringCache<String, Boolean> failed = ExpiringCache.expireAfterWrite(MAX_CACHED_VALUES,
+        FAILURE_RETRY_DELAY);
+
+    /**
+     * IDs of the resources whose value is being loaded.
+     */
+    private final Set<String> pending = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Gets the value of a resource. If not loaded yet, it is loaded once in the
+     * background and the row repainted.
+     *
+     * @param resource
+     *          The resource.
+     * @param loader
+     *          Loads the value.
+     *
+     * @return The value or <code>null</code> if not available yet.
+     */
+    String get(IResource resource, Function<IResource, String> loader) {
+      return get(resource, () -> Collections.singletonList(resource), resources -> {
+        Map<String, String> loaded = new HashMap<>();
+        loaded.put(resource.getId(), loader.apply(resource));
+        return loaded;
+      });
+    }
 
-    if (name == null) {
+    /**
+     * Gets the value of a resource. If not loaded yet, it is loaded in the
+     * background together with the values of other resources not loaded yet,
+     * and the rows repainted.
+     *
+     * @param resource
+     *          The resource.
+     * @param batch
+     *          The resources whose values are loaded together with it.
+     * @param loader
+     *          Loads the values, by resource ID.
+     *
+     * @return The value or <code>null</code> if not available yet.
+     */
+    <R extends IResource> String get(IResource resource, Supplier<List<R>> batch,
+        Function<List<R>, Map<String, String>> loader) {
+      String id = resource.getId();
+      if (id == null) {
+        return null;
+      }
+
+      Optional<String> value = values.get(id);
+      // Only one request for each resource, none while a recent one failed.
+      if (value == null && !pending.contains(id) && failed.get(id) == null) {
+        List<R> toLoad = new ArrayList<>();
+        for (R other : batch.get()) {
+          String otherId = other.getId();
+          if (otherId != null && values.get(otherId) == null && failed.get(otherId) == null
+              && pending.add(otherId)) {
+            toLoad.add(other);
+          }
+        }
 
-      TimerTask task = new TimerTask() {
-        @Override
-        public void run() {
-          // Get the name
-          String name = null;
-          name = resource.getDisplayName().replace(" (Working Copy)", "").trim();
+        if (!toLoad.isEmpty()) {
+          executor.execute(new LoadTask<>(this, toLoad, loader));
+        }
+      }
 
-          // Put it in the hashmap or put 'Empty'
-          cacheName.put(resource.getId(), name != null ? name : emptyResult);
+      return value != null ? value.orElse(null) : null;
+    }
 
-          // Repaint later the component
-          SwingUtilities.invokeLater(() -> {
+    /**
+     * Loads the values of some resources and repaints their rows. A failed
+     * load is remembered for a short time, then the values are requested again
+     * when the rows are painted again.
+     */
+    private <R extends IResource> void load(List<R> resources, Function<List<R>, Map<String, String>> loader) {
+      Map<String, String> loaded = null;
+      try {
+        loaded = loader.apply(resources);
+        for (R resource : resources) {
+          values.put(resource.getId(), Optional.ofNullable(loaded.get(resource.getId())));
+        }
+      } catch (RuntimeException e) {
+        logger.debug("Unable to load the details of " + resources.size() + " resources", e);
+        for (R resource : resources) {
+          failed.put(resource.getId(), Boolean.TRUE);
+        }
+      } finally {
+        for (R resource : resources) {
+          pending.remove(resource.getId());
+        }
+      }
 
-            int index = ((DefaultListModel<IResource>) list.getModel()).indexOf(resource);
-            Rectangle cellBounds = list.getCellBounds(index, index);
+      if (loaded != null) {
+        repaint(resources);
+      }
+    }
+  }
 
-            if (cellBounds != null) {
-              list.repaint(cellBounds);
-            }
-          });
+  /**
+   * Loads the values of some resources, unless the search was replaced in the
+   * meantime.
+   */
+  private class LoadTask<R extends IResource> implements Runnable {
+    private final AsyncValues values;
+    private final List<R> resources;
+    private final Function<List<R>, Map<String, String>> loader;
+
+    LoadTask(AsyncValues values, List<R> resources, Function<List<R>, Map<String, String>> loader) {
+      this.values = values;
+      this.resources = resources;
+      this.loader = loader;
+    }
 
-        }
-      };
+    /**
+     * @return <code>true</code> if the search is still presented.
+     */
+    boolean isActive() {
+      return active == CacheSearchProvider.this;
+    }
 
-      timer.schedule(task, 0);
+    @Override
+    public void run() {
+      if (isActive()) {
+        values.load(resources, loader);
+      }
     }
-    return name;
   }
-}
\ No newline at end of file
+}
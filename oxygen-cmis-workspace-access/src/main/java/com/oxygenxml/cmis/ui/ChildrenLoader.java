@@ -0,0 +1,159 @@
+package com.oxygenxml.cmis.ui;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+
+import javax.swing.DefaultListModel;
+import javax.swing.SwingWorker;
+
+import org.apache.log4j.Logger;
+
+import com.oxygenxml.cmis.core.model.IResource;
+import com.oxygenxml.cmis.core.model.impl.DocumentImpl;
+
+/**
+ * Loads the children of a resource into a list model, one page at a time, on a
+ * background thread. The next page is loaded only when asked for, typically
+ * when the user scrolls near the end of the list.
+ *
+ * All the methods must be called on the AWT thread.
+ */
+class ChildrenLoader {
+  /**
+   * Logging.
+   */
+  private static final Logger logger = Logger.getLogger(ChildrenLoader.class);
+
+  /**
+   * The resource whose children are loaded.
+   */
+  private final IResource parent;
+  /**
+   * The model that receives the children.
+   */
+  private final DefaultListModel<IResource> model;
+  /**
+   * Number of children read for one page.
+   */
+  private final int pageSize;
+  /**
+   * Called on the AWT thread after each loaded page.
+   */
+  private final Runnable pageLoadedCallback;
+  /**
+   * The children. Used by one background task at a time.
+   */
+  private Iterator<IResource> children;
+  /**
+   * The task loading the current page, <code>null</code> when idle.
+   */
+  private SwingWorker<Boolean, IResource> worker;
+  /**
+   * <code>true</code> when all the children were loaded.
+   */
+  private boolean finished;
+  /**
+   * <code>true</code> when the user navigated away.
+   */
+  private volatile boolean canceled;
+
+  /**
+   * Constructor.
+   *
+   * @param parent
+   *          The resource whose children are loaded.
+   * @param model
+   *          The model that receives the children.
+   * @param pageSize
+   *          Number of children read for one page.
+   * @param pageLoadedCallback
+   *          Called after each loaded page.
+   */
+  ChildrenLoader(IResource parent, DefaultListModel<IResource> model, int pageSize, Runnable pageLoadedCallback) {
+    this.parent = parent;
+    this.model = model;
+    this.pageSize = pageSize;
+    this.pageLoadedCallback = pageLoadedCallback;
+  }
+
+  /**
+   * Starts loading the next page, unless one is already loading or all the
+   * children were loaded.
+   */
+  void loadNextPage() {
+    if (canceled || finished || worker != null) {
+      return;
+    }
+
+    worker = new SwingWorker<Boolean, IResource>() {
+      @Override
+      protected Boolean doInBackground() {
+        if (children == null) {
+          children = parent.iterator();
+        }
+
+        if (children != null) {
+          int read = 0;
+          // Reading exactly one page of the iterator costs one request.
+          while (read < pageSize && !canceled && children.hasNext()) {
+            IResource child = children.next();
+            read++;
+
+            // Only if it's not a PWC document add to the model
+            if (!isPWC(child)) {
+              publish(child);
+            }
+          }
+        }
+
+        return children == null || !children.hasNext();
+      }
+
+      @Override
+      protected void process(List<IResource> chunk) {
+        if (!canceled) {
+          for (IResource child : chunk) {
+            model.addElement(child);
+          }
+        }
+      }
+
+      @Override
+      protected void done() {
+        worker = null;
+        if (!canceled) {
+          try {
+            finished = get();
+          } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+          } catch (ExecutionException e) {
+            logger.error("Unable to load the children of " + parent.getDisplayName(), e.getCause());
+            finished = true;
+          }
+
+          pageLoadedCallback.run();
+        }
+      }
+    };
+    worker.execute();
+  }
+
+  /**
+   * Stops loading. Results that still arrive from the server are dropped.
+   */
+  void cancel() {
+    canceled = true;
+  }
+
+  /**
+   * @param resource
+   *          A resource.
+   *
+   * @return <code>true</code> if the resource is a private working copy.
+   */
+  private static boolean isPWC(IResource resource) {
+    return resource instanceof DocumentImpl && ((DocumentImpl) resource).isCheckedOut()
+        && ((DocumentImpl) resource).isPrivateWorkingCopy();
+  }
+}
@@ -2,6 +2,7 @@ package com.oxygenxml.cmis.ui;
 
 import java.awt.BorderLayout;
 import java.net.URL;
+import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
 
@@ -10,6 +11,7 @@ import javax.swing.DefaultListModel;
 import javax.swing.DropMode;
 import javax.swing.JList;
 import javax.swing.JPanel;
+import javax.swing.JScrollBar;
 import javax.swing.JScrollPane;
 import javax.swing.ListSelectionModel;
 import javax.swing.TransferHandler;
@@ -57,10 +59,23 @@ public class ItemListView extends JPanel implements ResourcesBrowser, SearchList
    */
   private final JList<IResource> resourceList;
   private static final int COPY_PERMISSIONS = TransferHandler.MOVE;
+  /**
+   * The next page of children is loaded when the user scrolls this close (in
+   * rows) to the end of the list.
+   */
+  private static final int LOAD_AHEAD_ROWS = 20;
   /**
    * Search support.
    */
   private transient ContentSearcher contentProvider;
+  /**
+   * Loads the children of the current parent.
+   */
+  private transient ChildrenLoader childrenLoader;
+  /**
+   * Receives the results of the search in progress.
+   */
+  private DefaultListModel<IResource> searchResultsModel;
 
   /**
    * Constructor that gets the tabPresenter to show documents in tabs and
@@ -78,6 +93,8 @@ public class ItemListView extends JPanel implements ResourcesBrowser, SearchList
 
     // Scroller for the listRepo
     final JScrollPane listItemScrollPane = new JScrollPane(resourceList);
+    JScrollBar verticalScrollBar = listItemScrollPane.getVerticalScrollBar();
+    verticalScrollBar.addAdjustmentListener(e -> loadMoreIfNeeded());
 
     /*
      * Drag and drop move item
@@ -195,6 +212,7 @@ public class ItemListView extends JPanel implements ResourcesBrowser, SearchList
    * @param origin
    */
   private void setFolder(final FolderImpl origin) {
+    cancelLoading();
     DefaultListModel<IResource> model = new DefaultListModel<>();
 
     installDefaultRenderer();
@@ -217,39 +235,45 @@ public class ItemListView extends JPanel implements ResourcesBrowser, SearchList
   }
 
   /**
-   * Present the resources inside UI
+   * Present the resources inside UI. The first page of children is loaded in
+   * the background and the rest as the user scrolls.
    * 
    * @param parentResource
    */
   private void presentResourcesInternal(IResource parentResource) {
+    // The user navigated away from the previous parent.
+    cancelLoading();
 
     this.currentParent = parentResource;
 
     logger.debug("Current item=" + parentResource.getDisplayName());
-    // Get all the children of the item in an iterator
-    final Iterator<IResource> childrenIterator = parentResource.iterator();
-
-    // Iterate them till it has a child
-    if (childrenIterator != null) {
-
-      // Define a model for the list in order to render the items
-      final DefaultListModel<IResource> model = new DefaultListModel<>();
 
-      // While has a child, add to the model
-      while (childrenIterator.hasNext()) {
-        IResource iResource = childrenIterator.next();
+    // Define a model for the list in order to render the items
+    final DefaultListModel<IResource> model = new DefaultListModel<>();
+    resourceList.setModel(model);
 
-        // Only if it's not a PWC document add to the model
-        boolean notPWC = !(iResource instanceof DocumentImpl && ((DocumentImpl) iResource).isCheckedOut()
-            && ((DocumentImpl) iResource).isPrivateWorkingCopy());
+    childrenLoader = new ChildrenLoader(parentResource, model, FolderImpl.DEFAULT_PAGE_SIZE, this::loadMoreIfNeeded);
+    childrenLoader.loadNextPage();
+  }
 
-        if (notPWC) {
-          model.addElement(iResource);
-        }
-      }
+  /**
+   * Loads the next page of children if the user scrolled near the end of the
+   * list or if the loaded children don't fill it.
+   */
+  private void loadMoreIfNeeded() {
+    if (childrenLoader != null
+        && resourceList.getLastVisibleIndex() >= resourceList.getModel().getSize() - LOAD_AHEAD_ROWS) {
+      childrenLoader.loadNextPage();
+    }
+  }
 
-      // Set the model to the list
-      resourceList.setModel(model);
+  /**
+   * Stops loading the children of the current parent.
+   */
+  private void cancelLoading() {
+    if (childrenLoader != null) {
+      childrenLoader.cancel();
+      childrenLoader = null;
     }
   }
 
@@ -268,7 +292,9 @@ public class ItemListView extends JPanel implements ResourcesBrowser, SearchList
   }
 
   @Override
-  public void searchFinished(String filter, final List<IResource> resources, String option, boolean searchFolders) {
+  public void searchStarted(String filter, String option, boolean searchFolders) {
+    // The user left the folder being loaded.
+    cancelLoading();
 
     // Provides the threads needed for async response
     final CacheSearchProvider csp = new CacheSearchProvider(contentProvider, resourceList);
@@ -278,10 +304,13 @@ public class ItemListView extends JPanel implements ResourcesBrowser, SearchList
     SearchResultCellRenderer seachRenderer = new SearchResultCellRenderer(csp, filter);
     resourceList.setCellRenderer(seachRenderer);
 
+    // The results are added as they arrive.
+    final DefaultListModel<IResource> model = new DefaultListModel<>();
+
     final IResource parentResource = new IFolder() {
       @Override
       public Iterator<IResource> iterator() {
-        return resources.iterator();
+        return Collections.list(model.elements()).iterator();
       }
 
       @Override
@@ -333,7 +362,25 @@ public class ItemListView extends JPanel implements ResourcesBrowser, SearchList
       }
     };
 
-    presentResourcesInternal(parentResource);
+    this.currentParent = parentResource;
+    searchResultsModel = model;
+    resourceList.setModel(model);
+  }
+
+  @Override
+  public void resultsFound(List<IResource> resources) {
+    // Ignored if the user navigated away from the search results.
+    if (searchResultsModel != null && resourceList.getModel() == searchResultsModel) {
+      for (IResource resource : resources) {
+        searchResultsModel.addElement(resource);
+      }
+    }
+  }
+
+  @Override
+  public void searchFinished(String filter, final List<IResource> resources, String option, boolean searchFolders) {
+    logger.debug("Search results=" + resources.size());
+    searchResultsModel = null;
   }
 
   @Override
@@ -23,6 +23,7 @@ import com.oxygenxml.cmis.actions.CreateDocumentAction;
 import com.oxygenxml.cmis.actions.CreateFolderAction;
 import com.oxygenxml.cmis.actions.DeleteDocumentAction;
 import com.oxygenxml.cmis.actions.DeleteFolderAction;
+import com.oxygenxml.cmis.actions.FolderCheckoutState;
 import com.oxygenxml.cmis.actions.OpenDocumentAction;
 import com.oxygenxml.cmis.actions.PasteDocumentAction;
 import com.oxygenxml.cmis.actions.RenameDocumentAction;
@@ -115,9 +116,11 @@ class ResourceMouseHandler extends MouseAdapter {
     menu.add(new PasteDocumentAction(selectedResource, currentParent, itemsPresenter));
     menu.add(new DeleteFolderAction(selectedResource, currentParent, itemsPresenter));
 
-    menu.add(new CheckinFolderAction(selectedResource, currentParent, itemsPresenter));
-    menu.add(new CheckoutFolderAction(selectedResource, currentParent, itemsPresenter));
-    menu.add(new CancelCheckoutFolderAction(selectedResource, currentParent, itemsPresenter));
+    // The check-out state of the tree is queried once, in the background.
+    FolderCheckoutState checkoutState = new FolderCheckoutState(selectedResource);
+    menu.add(new CheckinFolderAction(selectedResource, currentParent, itemsPresenter, checkoutState));
+    menu.add(new CheckoutFolderAction(selectedResource, currentParent, itemsPresenter, checkoutState));
+    menu.add(new CancelCheckoutFolderAction(selectedResource, currentParent, itemsPresenter, checkoutState));
   }
 
   @Override
@@ -13,11 +13,30 @@ import com.oxygenxml.cmis.core.model.IResource;
  */
 public interface SearchListener {
   /**
-   * Installs the search resources for the: custom shadow folder of the search
-   * results, cached data and installs the custom renderer.
+   * A new search started. The results of the previous one, if still arriving,
+   * are dropped.
+   * 
+   * @param filter
+   * @param option
+   * @param searchFolders
+   *          Default search will be only for documents.
+   */
+  void searchStarted(String filter, String option, boolean searchFolders);
+
+  /**
+   * A page of results arrived from the server.
+   * 
+   * @param resources
+   *          The resources in the page.
+   */
+  void resultsFound(List<IResource> resources);
+
+  /**
+   * All the results arrived.
    * 
    * @param filter
    * @param resources
+   *          All the results of the search.
    * @param option
    * @param searchFolders
    *          Default search will be only for documents.
@@ -10,18 +10,23 @@ import java.awt.event.KeyListener;
 import java.net.URL;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Consumer;
 
 import javax.swing.ImageIcon;
 import javax.swing.JButton;
 import javax.swing.JLabel;
 import javax.swing.JPanel;
+import javax.swing.JProgressBar;
 import javax.swing.JTextField;
+import javax.swing.SwingWorker;
 
 import org.apache.log4j.Logger;
 
 import com.oxygenxml.cmis.core.CMISAccess;
 import com.oxygenxml.cmis.core.ResourceController;
 import com.oxygenxml.cmis.core.SearchController;
+import com.oxygenxml.cmis.core.SearchResultsHandler;
 import com.oxygenxml.cmis.core.model.IResource;
 import com.oxygenxml.cmis.core.model.impl.DocumentImpl;
 import com.oxygenxml.cmis.plugin.TranslationResourceController;
@@ -50,6 +55,14 @@ public class SearchView extends JPanel implements ContentSearcher, SearchPresent
   private JTextField searchField = null;
   private JButton searchButton = null;
   private JLabel filterLabel = null;
+  /**
+   * Shown while a search is in progress.
+   */
+  private JProgressBar progressBar = null;
+  /**
+   * The search in progress, <code>null</code> if none.
+   */
+  private transient SearchTask currentSearch;
 
   // Option of the search (name, title)
   private String option = null;
@@ -143,15 +156,131 @@ public class SearchView extends JPanel implements ContentSearcher, SearchPresent
     searchButton.setOpaque(true);
 
     add(filterLabel, c);
+
+    // Progress bar constraints
+    c.fill = GridBagConstraints.HORIZONTAL;
+    c.gridwidth = 4;
+    c.gridx = 0;
+    c.gridy = 1;
+    c.weightx = 1;
+    progressBar = new JProgressBar();
+    progressBar.setIndeterminate(true);
+    progressBar.setVisible(false);
+    add(progressBar, c);
   }
 
   @Override
   public void doSearch(final String searchText, String option, boolean searchFolders) {
-    // Get the search results of the query
-    List<IResource> queryResults = searchItems(searchText, option, searchFolders);
+    // A new search replaces the one still running.
+    if (currentSearch != null) {
+      currentSearch.stop();
+    }
+
+    fireSearchStarted(searchText, option, searchFolders);
+    progressBar.setVisible(true);
 
-    // Fire the search for each listener
-    fireSearchFinished(searchText, queryResults, option, searchFolders);
+    // The results are shown page by page, as they arrive.
+    currentSearch = new SearchTask(searchText, option, searchFolders);
+    currentSearch.execute();
+  }
+
+  /**
+   * Runs a search in the background and notifies the listeners on the AWT
+   * thread.
+   */
+  private class SearchTask extends SwingWorker<Void, IResource> implements SearchResultsHandler {
+    private final String searchText;
+    private final String option;
+    private final boolean searchFolders;
+    /**
+     * The results received so far.
+     */
+    private final List<IResource> results = new ArrayList<>();
+    /**
+     * <code>true</code> when replaced by another search.
+     */
+    private volatile boolean stopped;
+
+    SearchTask(String searchText, String option, boolean searchFolders) {
+      this.searchText = searchText;
+      this.option = option;
+      this.searchFolders = searchFolders;
+    }
+
+    /**
+     * Stops the search. The query page being fetched still completes on the
+     * server but no other page is requested.
+     */
+    void stop() {
+      stopped = true;
+    }
+
+    @Override
+    public boolean isCanceled() {
+      return stopped;
+    }
+
+    @Override
+    public void resultsFound(List<IResource> resources) {
+      publish(resources.toArray(new IResource[resources.size()]));
+    }
+
+    @Override
+    protected Void doInBackground() {
+      searchItems(searchText, option, searchFolders, this);
+      return null;
+    }
+
+    @Override
+    protected void process(List<IResource> chunk) {
+      if (!stopped) {
+        results.addAll(chunk);
+        fireResultsFound(chunk);
+      }
+    }
+
+    @Override
+    protected void done() {
+      if (!stopped) {
+        currentSearch = null;
+        progressBar.setVisible(false);
+
+        try {
+          get();
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+          logger.error("Search failed: " + searchText, e.getCause());
+        }
+
+        logger.debug("Results from server=" + results.size());
+        fireSearchFinished(searchText, results, option, searchFolders);
+      }
+    }
+  }
+
+  /**
+   * Notifies the listeners that a new search started.
+   * 
+   * @param searchText
+   * @param option
+   * @param searchFolders
+   */
+  protected void fireSearchStarted(String searchText, String option, boolean searchFolders) {
+    for (SearchListener l : listeners) {
+      l.searchStarted(searchText, option, searchFolders);
+    }
+  }
+
+  /**
+   * Notifies the listeners about a new page of results.
+   * 
+   * @param resources
+   */
+  protected void fireResultsFound(List<IResource> resources) {
+    for (SearchListener l : listeners) {
+      l.resultsFound(resources);
+    }
   }
 
   /**
@@ -178,50 +307,39 @@ public class SearchView extends JPanel implements ContentSearcher, SearchPresent
   }
 
   /**
-   * Add all the data searched in a list
+   * Searches the documents and, if asked, the folders, at the same time.
    * 
    * @param searchText
    * @param option
    * @param searchFolders
    *          If should search also in folders. Default search will be for
    *          documents.
-   * @return
+   * @param handler
+   *          Receives the results as they arrive, each resource once.
    */
-  private List<IResource> searchItems(String searchText, String option, boolean searchFolders) {
-    List<IResource> queryResults = new ArrayList<>();
+  private void searchItems(String searchText, String option, boolean searchFolders, SearchResultsHandler handler) {
     SearchController searchCtrl = new SearchController(CMISAccess.getInstance().createResourceController());
 
+    List<Consumer<SearchResultsHandler>> queries = new ArrayList<>();
     // The results from searching the documents
-    ArrayList<IResource> documentsResults = (ArrayList<IResource>) new SearchDocument(searchText, searchCtrl, option)
-        .getResultsFolder();
-
-    for (IResource iResource : documentsResults) {
-      logger.debug(" Doc id = " + iResource.getId());
-      logger.debug(" Doc name = " + iResource.getDisplayName());
-      logger.debug("\n");
-    }
-
-    logger.debug("Documents=" + documentsResults.size());
-
-    queryResults.addAll(documentsResults);
+    queries.add(results -> new SearchDocument(searchText, searchCtrl, option, results));
 
     if (searchFolders) {
       // The results from searching the folders
-      ArrayList<IResource> foldersResults = (ArrayList<IResource>) new SearchFolder(searchText, searchCtrl, option)
-          .getResultsFolder();
-      queryResults.addAll(foldersResults);
+      queries.add(results -> new SearchFolder(searchText, searchCtrl, option, results));
     }
-    logger.debug("Results from server=" + queryResults.size());
 
-    return queryResults;
+    SearchController.queryConcurrently(queries, handler);
   }
 
   /**
-   * Find the line where the text was found
+   * Find the line where the text was found. Called from background threads,
+   * which share one session.
    */
   @Override
   public String getLineDoc(IResource doc, String matchPattern) {
-    SearchController searchCtrl = new SearchController(CMISAccess.getInstance().clone().createResourceController());
+    SearchController searchCtrl = new SearchController(
+        CMISAccess.getInstance().createBackgroundResourceController());
 
     return searchCtrl.queryFindLine(doc, matchPattern);
   }
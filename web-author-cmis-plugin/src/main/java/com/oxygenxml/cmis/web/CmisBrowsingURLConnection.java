@@ -13,14 +13,18 @@ import java.util.HashMap;
 import java.util.List;
 import org.apache.chemistry.opencmis.client.api.CmisObject;
 import org.apache.chemistry.opencmis.client.api.Document;
-import org.apache.chemistry.opencmis.client.api.FileableCmisObject;
 import org.apache.chemistry.opencmis.client.api.Folder;
+import org.apache.chemistry.opencmis.client.api.OperationContext;
 import org.apache.chemistry.opencmis.client.api.Repository;
-import org.apache.chemistry.opencmis.commons.SessionParameter;
+import org.apache.chemistry.opencmis.commons.PropertyIds;
+import org.apache.chemistry.opencmis.commons.enums.IncludeRelationships;
 import org.apache.chemistry.opencmis.commons.exceptions.CmisUnauthorizedException;
 import org.apache.log4j.Logger;
 
 import com.google.common.annotations.VisibleForTesting;
+import com.oxygenxml.cmis.core.ResourceController;
+import com.oxygenxml.cmis.core.UserCredentials;
+import com.oxygenxml.cmis.core.cache.ExpiringCache;
 import com.oxygenxml.cmis.core.urlhandler.CmisURLConnection;
 import com.oxygenxml.cmis.web.action.CmisActions;
 
@@ -32,6 +36,31 @@ import ro.sync.net.protocol.FolderEntryDescriptor;
 public class CmisBrowsingURLConnection extends FilterURLConnection {
 	private static final Logger logger = Logger.getLogger(CmisBrowsingURLConnection.class.getName());
 
+	/**
+	 * The repository IDs of each server, by server URL and user credentials. Kept
+	 * for a short time (1 minute), a repository is rarely added.
+	 */
+	private static final ExpiringCache<String, List<String>> repositoriesCache = ExpiringCache
+			.expireAfterWrite(100, 60 * 1000L);
+
+	/**
+	 * Number of children listed in one request.
+	 */
+	private static final int LISTING_PAGE_SIZE = 100;
+
+	/**
+	 * The properties of the listed children: the name and what tells if a
+	 * document is a private working copy.
+	 */
+	private static final String[] LISTING_PROPERTIES = {
+			PropertyIds.OBJECT_ID,
+			PropertyIds.OBJECT_TYPE_ID,
+			PropertyIds.BASE_TYPE_ID,
+			PropertyIds.NAME,
+			PropertyIds.IS_PRIVATE_WORKING_COPY,
+			PropertyIds.IS_VERSION_SERIES_CHECKED_OUT,
+			PropertyIds.VERSION_SERIES_CHECKED_OUT_ID };
+
 	private CmisURLConnection connection;
 	private URL serverUrl;
 
@@ -122,7 +151,9 @@ public class CmisBrowsingURLConnection extends FilterURLConnection {
 	}
 
 	/**
-	 * Add CmisObject url into FolderEntryDescriptor list
+	 * Add CmisObject url into FolderEntryDescriptor list. The folder is resolved
+	 * once and its children are listed page by page, with only the properties
+	 * needed here. The URLs of the children are built from the path of the folder.
 	 * 
 	 * @param list
 	 * @throws MalformedURLException
@@ -132,12 +163,12 @@ public class CmisBrowsingURLConnection extends FilterURLConnection {
 	@VisibleForTesting
 	public void entryMethod(List<FolderEntryDescriptor> list)
 			throws MalformedURLException, CmisUnauthorizedException, UnsupportedEncodingException {
-		FileableCmisObject parent = null;
+		Folder parent = (Folder) connection.getCMISObject(url.toExternalForm());
+		// The session the folder was resolved with.
+		ResourceController ctrl = connection.getCMISAccess().createResourceController();
+		String parentPath = parent.getPath();
 
-		// After connection we get ResourceController for generate URL!
-		parent = (FileableCmisObject) connection.getCMISObject(url.toExternalForm());
-
-		for (CmisObject obj : ((Folder) parent).getChildren()) {
+		for (CmisObject obj : parent.getChildren(createListingContext(ctrl))) {
 			if (obj instanceof Document) {
 				Document doc = (Document ) obj;
 				Boolean isPrivateWorkingCopy = doc.isPrivateWorkingCopy();
@@ -152,9 +183,7 @@ public class CmisBrowsingURLConnection extends FilterURLConnection {
 				
 			}
 
-			String parentPath = this.getURL().getPath();
-			String entryUrl = CmisURLConnection.generateURLObject(obj,
-					connection.getResourceController(url.toExternalForm()), parentPath);
+			String entryUrl = CmisURLConnection.generateChildURL(ctrl, parentPath, obj.getName());
 
 			if (obj instanceof Folder) {
 				entryUrl = entryUrl.concat("/");
@@ -165,6 +194,26 @@ public class CmisBrowsingURLConnection extends FilterURLConnection {
 		folderEntryLogger(list);
 	}
 
+	/**
+	 * @param ctrl Controller for the repository.
+	 * @return The context for listing the children of a folder, with the
+	 *         properties needed to present them.
+	 */
+	private static OperationContext createListingContext(ResourceController ctrl) {
+		OperationContext context = ctrl.getSession().createOperationContext();
+		context.setFilterString(String.join(",", LISTING_PROPERTIES));
+		context.setIncludeAllowableActions(false);
+		context.setIncludeRelationships(IncludeRelationships.NONE);
+		context.setIncludePolicies(false);
+		context.setIncludeAcls(false);
+		context.setIncludePathSegments(false);
+		context.setRenditionFilterString("cmis:none");
+		// The session is shared, the state of the children must be fresh.
+		context.setCacheEnabled(false);
+		context.setMaxItemsPerPage(LISTING_PAGE_SIZE);
+		return context;
+	}
+
 	/**
 	 * If isPrivateWorkingCopy result is null we check 
 	 * document using isVersionSeriesPrivateWorkingCopy.
@@ -179,7 +228,8 @@ public class CmisBrowsingURLConnection extends FilterURLConnection {
 	}
 	
 	/**
-	 * Add Repository url into FolderEntryDescriptor list
+	 * Add Repository url into FolderEntryDescriptor list. The repositories of a
+	 * server are requested once for a short time, no session is created.
 	 * 
 	 * @param list
 	 * @throws MalformedURLException
@@ -189,38 +239,55 @@ public class CmisBrowsingURLConnection extends FilterURLConnection {
 	@VisibleForTesting
 	public void rootEntryMethod(List<FolderEntryDescriptor> list)
 			throws MalformedURLException, UnsupportedEncodingException, CmisUnauthorizedException {
-		List<Repository> reposList = connection.getCMISAccess().connectToServerGetRepositories(serverUrl,
-				connection.getUserCredentials());
+		UserCredentials credentials = connection.getUserCredentials();
+		String key = repositoriesKey(serverUrl, credentials);
+
+		List<String> repositoryIds = repositoriesCache.get(key);
+		if (repositoryIds == null) {
+			repositoryIds = new ArrayList<>();
+			for (Repository repos : connection.getCMISAccess().connectToServerGetRepositories(serverUrl, credentials)) {
+				repositoryIds.add(repos.getId());
+			}
+			repositoriesCache.put(key, repositoryIds);
+		}
 
-		for (Repository repos : reposList) {
-			String reposUrl = generateRepoUrl(repos);
-			list.add(new FolderEntryDescriptor(reposUrl));
+		for (String repositoryId : repositoryIds) {
+			list.add(new FolderEntryDescriptor(generateRepoUrl(repositoryId)));
 		}
 
 		folderEntryLogger(list);
 	}
 
 	/**
-	 * Generates custom URL for Repositories is used when URL path is empty
+	 * @param serverUrl   The server.
+	 * @param credentials The user credentials, can be <code>null</code>.
+	 * @return The key of the repositories listed by the user on the server. The
+	 *         password is part of it, so that a list is not served for other
+	 *         credentials than the ones that obtained it.
+	 */
+	private static String repositoriesKey(URL serverUrl, UserCredentials credentials) {
+		StringBuilder key = new StringBuilder(serverUrl.toExternalForm());
+		if (credentials != null) {
+			key.append('\n').append(credentials.getUsername());
+			key.append('\n').append(credentials.getPassword());
+		}
+		return key.toString();
+	}
+
+	/**
+	 * Generates custom URL for Repositories is used when URL path is empty. The
+	 * server URL is the one the sessions are created with.
 	 * 
-	 * @param repo
+	 * @param repositoryId
 	 * @return
 	 * @throws UnsupportedEncodingException
-	 * @throws MalformedURLException
 	 */
-	private String generateRepoUrl(Repository repo)
-			throws UnsupportedEncodingException, MalformedURLException, CmisUnauthorizedException {
+	private String generateRepoUrl(String repositoryId) throws UnsupportedEncodingException {
 		StringBuilder urlb = new StringBuilder();
 
-		// Connecting to Server to get host
-		connection.getCMISAccess().connectToRepo(serverUrl, repo.getId(), connection.getUserCredentials());
-		// Get server URL
-		String originalProtocol = connection.getCMISAccess().getSession().getSessionParameters()
-				.get(SessionParameter.ATOMPUB_URL);
-
-		originalProtocol = URLEncoder.encode(originalProtocol, "UTF-8");
+		String originalProtocol = URLEncoder.encode(serverUrl.toString(), "UTF-8");
 		urlb.append((CmisURLConnection.CMIS_PROTOCOL + "://")).append(originalProtocol).append("/");
-		urlb.append(repo.getId()).append("/");
+		urlb.append(repositoryId).append("/");
 
 		return urlb.toString();
 	}
@@ -42,6 +42,9 @@ public class CmisLoginServlet extends WebappServletPluginExtension {
 		WebappPluginWorkspace workspace = (WebappPluginWorkspace) PluginWorkspaceProvider.getPluginWorkspace();
 		SessionStore sessionStore = workspace.getSessionStore();
 
+		// The sessions were opened with the previous credentials.
+		CmisSessionRegistry.clear(sessionStore, userId);
+
 		if ("logout".equals(action)) {
 			sessionStore.remove(userId, "wa-cmis-plugin-credentials");
 		} else {
@@ -0,0 +1,114 @@
+package com.oxygenxml.cmis.web;
+
+import java.net.URL;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.oxygenxml.cmis.core.CMISAccess;
+import com.oxygenxml.cmis.core.SessionPool;
+
+import ro.sync.ecss.extensions.api.webapp.SessionStore;
+
+/**
+ * Keeps the CMIS sessions of a Web Author user. The URL handler, the editor
+ * listener and the actions opened for the same user share them, so one editor
+ * open doesn't cost a session handshake for each of them.
+ *
+ * The registry is kept in the {@link SessionStore} so it expires together with
+ * the Web Author session. It must be cleared whenever the user credentials
+ * change.
+ */
+public class CmisSessionRegistry {
+
+	/**
+	 * Key under which the registry is kept in the session store.
+	 */
+	private static final String SESSION_STORE_KEY = "wa-cmis-plugin-sessions";
+
+	/**
+	 * Maximum number of sessions kept for one user (one per repository).
+	 */
+	private static final int MAX_SESSIONS_PER_USER = 10;
+
+	/**
+	 * A session not used for this long is dropped (30 minutes).
+	 */
+	private static final long SESSION_IDLE_TIMEOUT = 30 * 60 * 1000L;
+
+	/**
+	 * Guards the creation of the registries.
+	 */
+	private static final Object lock = new Object();
+
+	/**
+	 * The sessions of the user.
+	 */
+	private final SessionPool sessionPool = new SessionPool(MAX_SESSIONS_PER_USER, SESSION_IDLE_TIMEOUT);
+
+	/**
+	 * Servers that already accepted the user credentials.
+	 */
+	private final Set<String> verifiedServers = ConcurrentHashMap.newKeySet();
+
+	/**
+	 * Gets the registry of a user, creating it if needed.
+	 *
+	 * @param sessionStore Web Author session store.
+	 * @param contextId    The user context ID.
+	 *
+	 * @return The registry.
+	 */
+	public static CmisSessionRegistry getRegistry(SessionStore sessionStore, String contextId) {
+		synchronized (lock) {
+			CmisSessionRegistry registry = sessionStore.get(contextId, SESSION_STORE_KEY);
+			if (registry == null) {
+				registry = new CmisSessionRegistry();
+				sessionStore.put(contextId, SESSION_STORE_KEY, registry);
+			}
+			return registry;
+		}
+	}
+
+	/**
+	 * Drops all the sessions of a user. Called on login and logout.
+	 *
+	 * @param sessionStore Web Author session store.
+	 * @param contextId    The user context ID.
+	 */
+	public static void clear(SessionStore sessionStore, String contextId) {
+		synchronized (lock) {
+			CmisSessionRegistry registry = sessionStore.get(contextId, SESSION_STORE_KEY);
+			if (registry != null) {
+				registry.sessionPool.clear();
+				registry.verifiedServers.clear();
+				sessionStore.remove(contextId, SESSION_STORE_KEY);
+			}
+		}
+	}
+
+	/**
+	 * @return A new access object that takes its sessions from this registry.
+	 */
+	public CMISAccess createCmisAccess() {
+		return new CMISAccess(sessionPool);
+	}
+
+	/**
+	 * @param serverUrl The server URL.
+	 *
+	 * @return <code>true</code> if the server already accepted the user
+	 *         credentials.
+	 */
+	public boolean isVerified(URL serverUrl) {
+		return verifiedServers.contains(serverUrl.toExternalForm());
+	}
+
+	/**
+	 * Remembers that the server accepted the user credentials.
+	 *
+	 * @param serverUrl The server URL.
+	 */
+	public void markVerified(URL serverUrl) {
+		verifiedServers.add(serverUrl.toExternalForm());
+	}
+}
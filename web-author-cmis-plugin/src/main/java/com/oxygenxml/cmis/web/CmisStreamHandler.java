@@ -30,7 +30,8 @@ public class CmisStreamHandler extends URLStreamHandlerWithContext {
 
 		// Getting credentials and another information
 		UserCredentials credentials = sessionStore.get(contextId, "wa-cmis-plugin-credentials");
-		CMISAccess cmisAccess = new CMISAccess();
+		CmisSessionRegistry registry = CmisSessionRegistry.getRegistry(sessionStore, contextId);
+		CMISAccess cmisAccess = registry.createCmisAccess();
 		CmisURLConnection cuc = new CmisURLConnection(url, cmisAccess, credentials);
 		URL serverUrl = CmisURLConnection.getServerURL(url.toExternalForm(), null);
 
@@ -41,7 +42,11 @@ public class CmisStreamHandler extends URLStreamHandlerWithContext {
 
 		if (credentials != null && !credentials.isEmpty()) {
 			try {
-				cmisAccess.pureConnectToServer(serverUrl, credentials);
+				// Only the first connection to a server needs to check the credentials.
+				if (!registry.isVerified(serverUrl)) {
+					cmisAccess.pureConnectToServer(serverUrl, credentials);
+					registry.markVerified(serverUrl);
+				}
 			} catch (CmisUnauthorizedException e) {
 				throw new UserActionRequiredException(webappMessage);
 			} catch (Exception e) {
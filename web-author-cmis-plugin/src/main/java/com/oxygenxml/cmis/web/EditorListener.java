@@ -74,7 +74,8 @@ public class EditorListener implements WorkspaceAccessPluginExtension {
 		
 		String contextId = url.getUserInfo();
 		UserCredentials credentials = sessionStore.get(contextId, "wa-cmis-plugin-credentials");
-		CmisURLConnection connection = new CmisURLConnection(url, new CMISAccess(), credentials);
+		CMISAccess cmisAccess = CmisSessionRegistry.getRegistry(sessionStore, contextId).createCmisAccess();
+		CmisURLConnection connection = new CmisURLConnection(url, cmisAccess, credentials);
 
 		PluginResourceBundle rb = webappPluginWorkspace.getResourceBundle();
 
@@ -10,6 +10,7 @@ import org.apache.log4j.Logger;
 import com.oxygenxml.cmis.core.CMISAccess;
 import com.oxygenxml.cmis.core.UserCredentials;
 import com.oxygenxml.cmis.core.urlhandler.CmisURLConnection;
+import com.oxygenxml.cmis.web.CmisSessionRegistry;
 import com.oxygenxml.cmis.web.EditorListener;
 import com.oxygenxml.cmis.web.TranslationTags;
 
@@ -140,7 +141,8 @@ public class CmisActions extends AuthorOperationWithResult {
 		String urlWithoutContextId = URLStreamHandlerWithContextUtil.getInstance().toStrippedExternalForm(url);
 		String contextId = url.getUserInfo();
 		credentials = sessionStore.get(contextId, "wa-cmis-plugin-credentials");
-		connection = new CmisURLConnection(url, new CMISAccess(), credentials);
+		CMISAccess cmisAccess = CmisSessionRegistry.getRegistry(sessionStore, contextId).createCmisAccess();
+		connection = new CmisURLConnection(url, cmisAccess, credentials);
 
 		if (urlWithoutContextId.contains(OLD_VERSION) || urlWithoutContextId.contains("?")) {
 			urlWithoutContextId = urlWithoutContextId.substring(0, urlWithoutContextId.indexOf("?"));
@@ -4,6 +4,7 @@ import org.apache.chemistry.opencmis.client.api.Document;
 import org.apache.log4j.Logger;
 
 import com.oxygenxml.cmis.core.urlhandler.CmisURLConnection;
+import com.oxygenxml.cmis.core.urlhandler.ContentDigestCache;
 
 public class CmisCheckInAction {
 
@@ -32,6 +33,7 @@ public class CmisCheckInAction {
 
 			if (pwc != null) {
 				Document PWC = (Document) connection.getCMISAccess().getSession().getObject(pwc);
+				ContentDigestCache.getInstance().invalidateDocument(PWC);
 
 				if (commitMessage == null || commitMessage == "null") {
 					commitMessage = "";
@@ -4,6 +4,7 @@ import org.apache.chemistry.opencmis.client.api.Document;
 import org.apache.log4j.Logger;
 
 import com.oxygenxml.cmis.core.urlhandler.CmisURLConnection;
+import com.oxygenxml.cmis.core.urlhandler.ContentDigestCache;
 
 public class CmisCheckOutAction {
 
@@ -47,6 +48,7 @@ public class CmisCheckOutAction {
 
 			if (pwc != null) {
 				Document PWC = (Document) connection.getCMISAccess().getSession().getObject(pwc);
+				ContentDigestCache.getInstance().invalidateDocument(PWC);
 				PWC.cancelCheckOut();
 			}
 